@@ -0,0 +1,160 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.compression.CompressionCodec;
+import tech.minediamond.micanbt.tag.CompoundTag;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads and writes NBT files through {@link AsynchronousFileChannel}, so no thread blocks on the file itself.
+ * <p>
+ * Decoding, encoding and (de)compression run on a caller-provided executor. The file transfer is driven by completion
+ * handlers, which continue on the channel's own thread pool.
+ *
+ * @see NBTReader#readAsync(Path, NBTReadOptions, Executor)
+ * @see NBTWriter#writeAsync(CompoundTag, Path, CompressionCodec, boolean, Executor)
+ */
+final class AsyncFileIO {
+
+    private AsyncFileIO() {
+    }
+
+    static CompletableFuture<CompoundTag> read(Path path, NBTReadOptions options, Executor executor) {
+        AsynchronousFileChannel channel;
+        ByteBuffer buffer;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IOException("File is too large to read: " + size + " bytes");
+            }
+            buffer = ByteBuffer.allocate((int) size);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return closeAfter(channel, readFully(channel, buffer))
+                .thenApplyAsync(read -> {
+                    byte[] data = read.remaining() == read.capacity() ? read.array() : Arrays.copyOf(read.array(), read.remaining());
+                    try {
+                        return NBTReader.read(data, options);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+    }
+
+    static CompletableFuture<Void> write(CompoundTag tag, Path path, CompressionCodec codec, boolean littleEndian, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Path parent = path.getParent();
+                if (parent != null && Files.notExists(parent)) {
+                    Files.createDirectories(parent);
+                }
+                return encode(tag, codec, littleEndian);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(buffer -> {
+            AsynchronousFileChannel channel;
+            try {
+                channel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return closeAfter(channel, writeFully(channel, buffer)).thenApply(written -> null);
+        });
+    }
+
+    private static ByteBuffer encode(CompoundTag tag, CompressionCodec codec, boolean littleEndian) throws IOException {
+        NBTFormat format = NBTFormat.of(littleEndian);
+        if (codec == Compression.NONE) {
+            // Uncompressed output has a known size, so it is encoded straight into a buffer of exactly that size.
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(NBTWriter.sizeOf(tag, format)));
+            NBTWriter.writeTag(buffer, tag, format);
+            return buffer.flip();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new BufferedOutputStream(codec.compress(bytes))) {
+            NBTWriter.writeTag(out, tag, format);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static CompletableFuture<ByteBuffer> readFully(AsynchronousFileChannel channel, ByteBuffer buffer) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        channel.read(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer count, Void attachment) {
+                if (count < 0 || !buffer.hasRemaining()) {
+                    future.complete(buffer.flip());
+                } else {
+                    channel.read(buffer, buffer.position(), null, this);
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static CompletableFuture<ByteBuffer> writeFully(AsynchronousFileChannel channel, ByteBuffer buffer) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        channel.write(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer count, Void attachment) {
+                if (!buffer.hasRemaining()) {
+                    future.complete(buffer);
+                } else {
+                    channel.write(buffer, buffer.position(), null, this);
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Closes the channel once the transfer is done, failing the result if closing fails after a successful transfer.
+     */
+    private static <T> CompletableFuture<T> closeAfter(AsynchronousFileChannel channel, CompletableFuture<T> transfer) {
+        return transfer.handle((result, error) -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    throw new CompletionException(e);
+                }
+                error.addSuppressed(e);
+            }
+            if (error != null) {
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
+            return result;
+        });
+    }
+}
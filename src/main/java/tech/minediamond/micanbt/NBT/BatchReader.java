@@ -0,0 +1,153 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.CompoundTag;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a batch of files concurrently, handing out the results in the order they finish.
+ * <p>
+ * Every file goes through two stages: its bytes are read on the I/O executor, then decompressed and decoded on the
+ * decode executor. At most {@link #MAX_IN_FLIGHT} files are between being started and being taken by the consumer.
+ *
+ * @see NBTReader#readAll(Collection, NBTReadOptions, Executor, Executor)
+ */
+final class BatchReader implements Iterator<NBTFileResult> {
+    private static final int MAX_IN_FLIGHT = 128;
+    private static final int FALLBACK_IO_THREADS = 32;
+    private static volatile ExecutorService ioExecutor;
+
+    private final List<Path> paths;
+    private final NBTReadOptions options;
+    private final Executor io;
+    private final Executor decode;
+    private final BlockingQueue<NBTFileResult> results = new LinkedBlockingQueue<>();
+    private final AtomicInteger started = new AtomicInteger();
+    private int taken;
+
+    BatchReader(Collection<Path> paths, NBTReadOptions options, Executor io, Executor decode) {
+        this.paths = List.copyOf(paths);
+        this.options = options;
+        this.io = io;
+        this.decode = decode;
+    }
+
+    /**
+     * Gets the shared executor for file reads: one virtual thread per task when the runtime supports them,
+     * otherwise a fixed pool of daemon threads.
+     */
+    static Executor defaultIoExecutor() {
+        ExecutorService executor = ioExecutor;
+        if (executor == null) {
+            synchronized (BatchReader.class) {
+                executor = ioExecutor;
+                if (executor == null) {
+                    executor = ioExecutor = newIoExecutor();
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static ExecutorService newIoExecutor() {
+        try {
+            // Looked up reflectively, virtual threads only exist from Java 21 on.
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_IO_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "NBT-IO-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    static Executor defaultDecodeExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    Stream<NBTFileResult> stream() {
+        for (int index = 0; index < MAX_IN_FLIGHT; index++) {
+            this.startNext();
+        }
+        Spliterator<NBTFileResult> spliterator = Spliterators.spliterator(this, this.paths.size(),
+                Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private void startNext() {
+        int index = this.started.getAndIncrement();
+        if (index >= this.paths.size()) {
+            return;
+        }
+
+        Path path = this.paths.get(index);
+        try {
+            CompletableFuture.supplyAsync(() -> this.readBytes(path), this.io)
+                    .thenAcceptAsync(bytes -> this.results.add(this.decode(path, bytes)), this.decode)
+                    .exceptionally(e -> {
+                        this.results.add(new NBTFileResult(path, null, asIOException(path, e)));
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            this.results.add(new NBTFileResult(path, null, asIOException(path, e)));
+        }
+    }
+
+    private byte[] readBytes(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private NBTFileResult decode(Path path, byte[] bytes) {
+        try {
+            CompoundTag tag = NBTReader.read(bytes, this.options);
+            return new NBTFileResult(path, tag, null);
+        } catch (IOException | RuntimeException e) {
+            return new NBTFileResult(path, null, asIOException(path, e));
+        }
+    }
+
+    private static IOException asIOException(Path path, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        return new IOException("Failed to read " + path, cause);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.taken < this.paths.size();
+    }
+
+    @Override
+    public NBTFileResult next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        NBTFileResult result;
+        try {
+            result = this.results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for NBT files.");
+        }
+        this.taken++;
+        this.startNext();
+        return result;
+    }
+}
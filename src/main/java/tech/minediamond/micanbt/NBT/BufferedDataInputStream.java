@@ -0,0 +1,322 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataInput} that assembles primitives from an internal byte window.
+ * <p>
+ * Every primitive costs at most one bulk read on the underlying stream instead of one {@code read()} per byte.
+ * With read-ahead enabled the window is filled as far as possible, which is only safe when nothing else reads
+ * the underlying stream afterward. Without it, exactly the requested bytes are consumed.
+ * Strings are decoded straight from the window, through an {@link NBTStringPool} if one is given.
+ * The stream holds no locks and is not thread-safe.
+ * <p>
+ * A big-endian stream reads modified UTF-8 strings, as used by Java Edition, and reads the same data as
+ * {@link DataInputStream}. A little-endian stream reads standard UTF-8 strings, as used by Bedrock Edition.
+ */
+class BufferedDataInputStream extends FilterInputStream implements DataInput {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle CHAR = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final byte[] EMPTY = {};
+
+    /**
+     * The window, allocated on first use. Without read-ahead it only grows as large as the largest request,
+     * so decoding a small tag does not allocate the whole window.
+     */
+    byte[] buffer = EMPTY;
+    private final boolean readAhead;
+    /**
+     * Whether the stream is big-endian, otherwise multibyte primitives have their bytes reversed after decoding.
+     */
+    private final boolean bigEndian;
+    private final boolean modifiedUtf8;
+    private final NBTStringPool pool;
+    private byte[] scratch;
+    private NBTReadLimits.Budget budget;
+    /**
+     * Bytes taken from the underlying stream, used to work out how many bytes have been consumed.
+     */
+    private long pulled;
+    int position;
+    int limit;
+
+    /**
+     * Creates a stream on top of another one.
+     *
+     * @param in        Stream to read from.
+     * @param order     Byte order of the data, which also selects the string encoding.
+     * @param readAhead Whether the window may be filled beyond the requested bytes.
+     * @param pool      Pool for strings, or null.
+     */
+    BufferedDataInputStream(InputStream in, ByteOrder order, boolean readAhead, NBTStringPool pool) {
+        super(in);
+        this.readAhead = readAhead;
+        this.bigEndian = order == ByteOrder.BIG_ENDIAN;
+        this.modifiedUtf8 = this.bigEndian;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the byte order of the fixed-width primitives of this stream.
+     */
+    ByteOrder order() {
+        return this.bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Makes sure that at least {@code count} bytes are buffered, {@code count} must not exceed the buffer size.
+     */
+    final void ensure(int count) throws IOException {
+        int buffered = this.limit - this.position;
+        if (buffered >= count) {
+            return;
+        }
+
+        if (this.position > 0 || count > this.buffer.length) {
+            byte[] target = count <= this.buffer.length ? this.buffer : new byte[this.readAhead ? BUFFER_SIZE
+                    : Math.min(Math.max(count, Math.max(this.buffer.length * 2, MIN_BUFFER_SIZE)), BUFFER_SIZE)];
+            System.arraycopy(this.buffer, this.position, target, 0, buffered);
+            this.buffer = target;
+            this.position = 0;
+            this.limit = buffered;
+        }
+        while (this.limit < count) {
+            int request = this.readAhead ? this.buffer.length - this.limit : count - this.limit;
+            int read = this.in.read(this.buffer, this.limit, request);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            this.limit += read;
+            this.pulled += read;
+        }
+    }
+
+    /**
+     * Enforces the limits while reading through this stream.
+     */
+    void setLimits(NBTReadLimits limits) {
+        this.budget = limits == null || limits == NBTReadLimits.UNLIMITED ? null : new NBTReadLimits.Budget(limits);
+    }
+
+    /**
+     * Gets the budget of the limits, or null if the stream is unlimited.
+     */
+    NBTReadLimits.Budget budget() {
+        return this.budget;
+    }
+
+    /**
+     * Gets the number of bytes consumed from this stream.
+     */
+    long consumed() {
+        return this.pulled - (this.limit - this.position);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.position < this.limit) {
+            return this.buffer[this.position++] & 0xFF;
+        }
+        int b = this.in.read();
+        if (b >= 0) {
+            this.pulled++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return this.read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int buffered = this.limit - this.position;
+        if (buffered == 0) {
+            int read = this.in.read(b, off, len);
+            if (read > 0) {
+                this.pulled += read;
+            }
+            return read;
+        }
+
+        int count = Math.min(len, buffered);
+        System.arraycopy(this.buffer, this.position, b, off, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return this.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.limit - this.position + this.in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        this.readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if (len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        int count = Math.min(len, this.limit - this.position);
+        System.arraycopy(this.buffer, this.position, b, off, count);
+        this.position += count;
+
+        int read;
+        for (int pos = count; pos < len; pos += read) {
+            read = this.in.read(b, off + pos, len - pos);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            this.pulled += read;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int total = Math.min(Math.max(n, 0), this.limit - this.position);
+        this.position += total;
+
+        int skipped;
+        while (total < n && (skipped = (int) this.in.skip(n - total)) > 0) {
+            total += skipped;
+            this.pulled += skipped;
+        }
+
+        return total;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return this.readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        this.ensure(Byte.BYTES);
+        return this.buffer[this.position++];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return this.readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        this.ensure(Short.BYTES);
+        short value = (short) SHORT.get(this.buffer, this.position);
+        this.position += Short.BYTES;
+        return this.bigEndian ? value : Short.reverseBytes(value);
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return this.readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        this.ensure(Character.BYTES);
+        char value = (char) CHAR.get(this.buffer, this.position);
+        this.position += Character.BYTES;
+        return this.bigEndian ? value : Character.reverseBytes(value);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        this.ensure(Integer.BYTES);
+        int value = (int) INT.get(this.buffer, this.position);
+        this.position += Integer.BYTES;
+        return this.bigEndian ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        this.ensure(Long.BYTES);
+        long value = (long) LONG.get(this.buffer, this.position);
+        this.position += Long.BYTES;
+        return this.bigEndian ? value : Long.reverseBytes(value);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        this.ensure(Integer.BYTES);
+        int bits = (int) INT.get(this.buffer, this.position);
+        this.position += Integer.BYTES;
+        return Float.intBitsToFloat(this.bigEndian ? bits : Integer.reverseBytes(bits));
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        this.ensure(Long.BYTES);
+        long bits = (long) LONG.get(this.buffer, this.position);
+        this.position += Long.BYTES;
+        return Double.longBitsToDouble(this.bigEndian ? bits : Long.reverseBytes(bits));
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        throw new UnsupportedOperationException("Use readUTF.");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return this.readUTF(this.readUnsignedShort());
+    }
+
+    /**
+     * Reads a string of the given byte length, through the string pool if there is one.
+     */
+    String readUTF(int length) throws IOException {
+        if (length > BUFFER_SIZE) {
+            if (this.budget != null) {
+                this.budget.checkBytes(this.consumed() + length);
+            }
+            // Strings beyond the window are rare, the scratch array is kept for those that fit a regular string length.
+            byte[] bytes = this.scratch != null && this.scratch.length >= length ? this.scratch : new byte[length];
+            if (length <= 0xFFFF) {
+                this.scratch = bytes;
+            }
+            this.readFully(bytes, 0, length);
+            return StringCodec.decode(bytes, 0, length, this.modifiedUtf8);
+        }
+
+        this.ensure(length);
+        String value = this.pool != null
+                ? this.pool.get(this.buffer, this.position, length, this.modifiedUtf8)
+                : StringCodec.decode(this.buffer, this.position, length, this.modifiedUtf8);
+        this.position += length;
+        return value;
+    }
+}
@@ -0,0 +1,213 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.DataOutput;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A {@link DataOutput} that encodes primitives into an internal byte window.
+ * <p>
+ * The window is handed to the underlying stream in one call when it is full, on {@link #flush()} and on close.
+ * Strings are encoded straight into the window by {@link StringCodec}.
+ * The stream holds no locks and is not thread-safe.
+ * <p>
+ * A big-endian stream writes modified UTF-8 strings, as used by Java Edition, and writes the same data as
+ * {@link java.io.DataOutputStream}. A little-endian stream writes standard UTF-8 strings, as used by Bedrock Edition.
+ */
+class BufferedDataOutputStream extends FilterOutputStream implements DataOutput {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    /**
+     * The window, which starts empty and grows up to its full size before it is first handed on,
+     * so encoding a small tag does not allocate the whole window.
+     */
+    byte[] buffer = {};
+    /**
+     * Whether the stream is big-endian, otherwise multibyte primitives have their bytes reversed before encoding.
+     */
+    private final boolean bigEndian;
+    private final boolean modifiedUtf8;
+    private byte[] scratch;
+    int position;
+
+    /**
+     * Creates a stream on top of another one.
+     *
+     * @param out   Stream to write to.
+     * @param order Byte order of the data, which also selects the string encoding.
+     */
+    BufferedDataOutputStream(OutputStream out, ByteOrder order) {
+        super(out);
+        this.bigEndian = order == ByteOrder.BIG_ENDIAN;
+        this.modifiedUtf8 = this.bigEndian;
+    }
+
+    /**
+     * Gets the byte order of the fixed-width primitives of this stream.
+     */
+    ByteOrder order() {
+        return this.bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Hands the buffered bytes to the underlying stream without flushing it.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void drain() throws IOException {
+        if (this.position > 0) {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    final void ensure(int count) throws IOException {
+        if (this.buffer.length - this.position < count) {
+            if (this.buffer.length < BUFFER_SIZE) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.min(Math.max(this.position + count,
+                        Math.max(this.buffer.length * 2, MIN_BUFFER_SIZE)), BUFFER_SIZE));
+            }
+            if (this.buffer.length - this.position < count) {
+                this.drain();
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.ensure(Byte.BYTES);
+        this.buffer[this.position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        this.write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len >= BUFFER_SIZE) {
+            this.drain();
+            this.out.write(b, off, len);
+            return;
+        }
+
+        this.ensure(len);
+        System.arraycopy(b, off, this.buffer, this.position, len);
+        this.position += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+        this.out.flush();
+    }
+
+    @Override
+    public void writeBoolean(boolean b) throws IOException {
+        this.write(b ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int b) throws IOException {
+        this.write(b);
+    }
+
+    @Override
+    public void writeShort(int s) throws IOException {
+        this.ensure(Short.BYTES);
+        SHORT.set(this.buffer, this.position, this.bigEndian ? (short) s : Short.reverseBytes((short) s));
+        this.position += Short.BYTES;
+    }
+
+    @Override
+    public void writeChar(int c) throws IOException {
+        this.writeShort(c);
+    }
+
+    @Override
+    public void writeInt(int i) throws IOException {
+        this.ensure(Integer.BYTES);
+        INT.set(this.buffer, this.position, this.bigEndian ? i : Integer.reverseBytes(i));
+        this.position += Integer.BYTES;
+    }
+
+    @Override
+    public void writeLong(long l) throws IOException {
+        this.ensure(Long.BYTES);
+        LONG.set(this.buffer, this.position, this.bigEndian ? l : Long.reverseBytes(l));
+        this.position += Long.BYTES;
+    }
+
+    @Override
+    public void writeFloat(float f) throws IOException {
+        int bits = Float.floatToIntBits(f);
+        this.ensure(Integer.BYTES);
+        INT.set(this.buffer, this.position, this.bigEndian ? bits : Integer.reverseBytes(bits));
+        this.position += Integer.BYTES;
+    }
+
+    @Override
+    public void writeDouble(double d) throws IOException {
+        long bits = Double.doubleToLongBits(d);
+        this.ensure(Long.BYTES);
+        LONG.set(this.buffer, this.position, this.bigEndian ? bits : Long.reverseBytes(bits));
+        this.position += Long.BYTES;
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        int len = s.length();
+        for (int index = 0; index < len; index++) {
+            this.write((byte) s.charAt(index));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        int len = s.length();
+        for (int index = 0; index < len; index++) {
+            this.writeChar(s.charAt(index));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        int length = StringCodec.encodedLength(s, this.modifiedUtf8);
+        if (length > 0xFFFF) {
+            throw StringCodec.tooLong(length);
+        }
+        this.writeShort(length);
+        this.writeEncoded(s, length);
+    }
+
+    /**
+     * Writes the encoded bytes of a string, without a length.
+     *
+     * @param length The encoded length of the string.
+     */
+    final void writeEncoded(String s, int length) throws IOException {
+        if (length <= BUFFER_SIZE) {
+            this.ensure(length);
+            this.position = StringCodec.encode(s, this.buffer, this.position, this.modifiedUtf8);
+            return;
+        }
+
+        // Strings beyond the window are rare, the scratch array is kept for those that fit a regular string length.
+        byte[] bytes = this.scratch != null && this.scratch.length >= length ? this.scratch : new byte[length];
+        if (length <= 0xFFFF) {
+            this.scratch = bytes;
+        }
+        StringCodec.encode(s, bytes, 0, this.modifiedUtf8);
+        this.write(bytes, 0, length);
+    }
+}
@@ -0,0 +1,578 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes binary NBT straight from a {@link ByteBuffer}.
+ * <p>
+ * Unlike {@link Tag#read(java.io.DataInput)} this does not go through a {@link java.io.DataInput},
+ * every primitive is an absolute read on the buffer and arrays are copied in bulk through buffer views.
+ * It works the same for heap, direct and memory-mapped buffers, and supports every {@link NBTFormat}.
+ * <p>
+ * In lazy mode, compounds and lists are only skipped over and returned as lazy tags backed by a {@link LazySlice}
+ * of the buffer, which decodes them with another lazy decoder on first access.
+ */
+final class ByteBufferDecoder {
+    /**
+     * Lists of ints, floats and doubles with fewer elements are read one element at a time,
+     * which is cheaper than creating the buffer views for copying them in bulk.
+     */
+    private static final int MIN_BULK_ELEMENTS = 16;
+
+    private final ByteBuffer buffer;
+    private final NBTFormat format;
+    private final boolean lazy;
+    private final NBTStringPool pool;
+    private final NBTReadLimits.Budget budget;
+    private final int start;
+    private final int limit;
+    private int position;
+    private byte[] scratch;
+
+    ByteBufferDecoder(ByteBuffer buffer, NBTFormat format) {
+        this(buffer, format, false);
+    }
+
+    ByteBufferDecoder(ByteBuffer buffer, NBTFormat format, boolean lazy) {
+        this(buffer, buffer.position(), buffer.limit(), format, lazy, null);
+    }
+
+    ByteBufferDecoder(ByteBuffer buffer, NBTReadOptions options) {
+        this(buffer, buffer.position(), buffer.limit(), options.getFormat(), false, options.getPool(), options.getLimits());
+    }
+
+    ByteBufferDecoder(ByteBuffer buffer, int position, int limit, NBTFormat format, boolean lazy, NBTStringPool pool) {
+        this(buffer, position, limit, format, lazy, pool, null);
+    }
+
+    ByteBufferDecoder(ByteBuffer buffer, int position, int limit, NBTFormat format, boolean lazy,
+                      NBTStringPool pool, NBTReadLimits limits) {
+        this.buffer = buffer.duplicate().order(format == NBTFormat.JAVA ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        this.format = format;
+        this.lazy = lazy;
+        this.pool = pool;
+        this.budget = limits == null || limits == NBTReadLimits.UNLIMITED ? null : new NBTReadLimits.Budget(limits);
+        this.start = position;
+        this.limit = limit;
+        this.position = position;
+    }
+
+    int position() {
+        return this.position;
+    }
+
+    Tag readTag() throws IOException {
+        return this.readTag(true);
+    }
+
+    Tag readTag(boolean named) throws IOException {
+        int id = this.readUnsignedByte();
+        if (id == 0) {
+            return null;
+        }
+
+        return this.readPayload(id, named ? this.readString() : "");
+    }
+
+    private Tag readPayload(int id, String name) throws IOException {
+        if (this.budget == null) {
+            return this.decodePayload(id, name);
+        }
+
+        boolean container = id == CompoundTag.ID || id == ListTag.ID;
+        this.budget.enter(container, this.position - this.start);
+        Tag tag = this.decodePayload(id, name);
+        this.budget.exit(container);
+        return tag;
+    }
+
+    private Tag decodePayload(int id, String name) throws IOException {
+        return switch (id) {
+            case ByteTag.ID -> new ByteTag(name, this.readByte());
+            case ShortTag.ID -> new ShortTag(name, this.readShort());
+            case IntTag.ID -> new IntTag(name, this.readInt());
+            case LongTag.ID -> new LongTag(name, this.readLong());
+            case FloatTag.ID -> new FloatTag(name, this.readFloat());
+            case DoubleTag.ID -> new DoubleTag(name, this.readDouble());
+            case ByteArrayTag.ID -> new ByteArrayTag(name, this.readByteArray(null));
+            case StringTag.ID -> new StringTag(name, this.readString());
+            case ListTag.ID -> this.lazy ? this.readLazyList(name) : this.readList(name);
+            case CompoundTag.ID -> this.lazy ? this.readLazyCompound(name) : this.readCompound(name);
+            case IntArrayTag.ID -> new IntArrayTag(name, this.readIntArray(null));
+            case LongArrayTag.ID -> new LongArrayTag(name, this.readLongArray(null));
+            default -> throw new IOException("Failed to create tag.", new TagCreateException("Could not find tag with ID \"" + id + "\"."));
+        };
+    }
+
+    /**
+     * Gets a refiller that decodes from this decoder's buffer into existing tags.
+     */
+    TagRefiller refiller() {
+        return new TagRefiller() {
+            @Override
+            int readUnsignedByte() throws IOException {
+                return ByteBufferDecoder.this.readUnsignedByte();
+            }
+
+            @Override
+            byte readByte() throws IOException {
+                return ByteBufferDecoder.this.readByte();
+            }
+
+            @Override
+            short readShort() throws IOException {
+                return ByteBufferDecoder.this.readShort();
+            }
+
+            @Override
+            int readInt() throws IOException {
+                return ByteBufferDecoder.this.readInt();
+            }
+
+            @Override
+            long readLong() throws IOException {
+                return ByteBufferDecoder.this.readLong();
+            }
+
+            @Override
+            float readFloat() throws IOException {
+                return ByteBufferDecoder.this.readFloat();
+            }
+
+            @Override
+            double readDouble() throws IOException {
+                return ByteBufferDecoder.this.readDouble();
+            }
+
+            @Override
+            String readString() throws IOException {
+                return ByteBufferDecoder.this.readString();
+            }
+
+            @Override
+            byte[] readByteArray(byte[] reuse) throws IOException {
+                return ByteBufferDecoder.this.readByteArray(reuse);
+            }
+
+            @Override
+            int[] readIntArray(int[] reuse) throws IOException {
+                return ByteBufferDecoder.this.readIntArray(reuse);
+            }
+
+            @Override
+            long[] readLongArray(long[] reuse) throws IOException {
+                return ByteBufferDecoder.this.readLongArray(reuse);
+            }
+
+            @Override
+            Tag readPayload(int id, String name) throws IOException {
+                return ByteBufferDecoder.this.readPayload(id, name);
+            }
+
+            @Override
+            NBTReadLimits.Budget budget() {
+                return ByteBufferDecoder.this.budget;
+            }
+
+            @Override
+            long consumed() {
+                return ByteBufferDecoder.this.position - ByteBufferDecoder.this.start;
+            }
+
+            @Override
+            int intSize() {
+                return ByteBufferDecoder.this.varInts() ? 1 : Integer.BYTES;
+            }
+        };
+    }
+
+    private CompoundTag readCompound(String name) throws IOException {
+        CompoundTag compound = new CompoundTag(name);
+        this.readEntries(compound);
+        return compound;
+    }
+
+    /**
+     * Reads the entries of a compound payload, up to and including its end tag, into the given compound.
+     */
+    void readEntries(CompoundTag compound) throws IOException {
+        Tag tag;
+        try {
+            while ((tag = this.readTag()) != null) {
+                compound.putOwned(tag);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Closing EndTag was not found!");
+        }
+    }
+
+    private ListTag<Tag> readList(String name) throws IOException {
+        int typeId = this.readUnsignedByte();
+        ListTag<Tag> list = new ListTag<>(name, typeId);
+        this.readElements(list, typeId);
+        return list;
+    }
+
+    /**
+     * Reads a list payload, starting at its element type, into the given list.
+     */
+    void readElements(ListTag<Tag> list) throws IOException {
+        this.readElements(list, this.readUnsignedByte());
+    }
+
+    private void readElements(ListTag<Tag> list, int typeId) throws IOException {
+        int count = this.readInt();
+        if (count > 0 && typeId == 0) {
+            throw new IOException("ListTag type is TAG_End but count is > 0");
+        }
+        if (count <= 0) {
+            return;
+        }
+
+        switch (typeId) {
+            case IntTag.ID -> {
+                // VarInts take at least one byte each and cannot be copied in bulk.
+                if (this.varInts()) {
+                    this.checkLength(count, 1);
+                }
+                if (this.varInts() || this.checkLength(count, Integer.BYTES) < MIN_BULK_ELEMENTS) {
+                    for (int index = 0; index < count; index++) {
+                        list.addInt(this.readInt());
+                    }
+                } else {
+                    list.addInts(this.elements(count * Integer.BYTES).asIntBuffer());
+                }
+            }
+            case FloatTag.ID -> {
+                if (this.checkLength(count, Float.BYTES) < MIN_BULK_ELEMENTS) {
+                    for (int index = 0; index < count; index++) {
+                        list.addFloat(this.readFloat());
+                    }
+                } else {
+                    list.addFloats(this.elements(count * Float.BYTES).asFloatBuffer());
+                }
+            }
+            case DoubleTag.ID -> {
+                if (this.checkLength(count, Double.BYTES) < MIN_BULK_ELEMENTS) {
+                    for (int index = 0; index < count; index++) {
+                        list.addDouble(this.readDouble());
+                    }
+                } else {
+                    list.addDoubles(this.elements(count * Double.BYTES).asDoubleBuffer());
+                }
+            }
+            default -> {
+                for (int index = 0; index < count; index++) {
+                    list.addOwned(this.readPayload(typeId, ""));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the next bytes as a view of the buffer in its byte order, for copying elements in bulk.
+     */
+    private ByteBuffer elements(int length) {
+        ByteBuffer elements = this.buffer.slice(this.position, length).order(this.buffer.order());
+        this.position += length;
+        return elements;
+    }
+
+    private CompoundTag readLazyCompound(String name) throws IOException {
+        int start = this.position;
+        this.skipPayload(CompoundTag.ID);
+        return new CompoundTag(name, new LazySlice(this.buffer, start, this.position, this.format));
+    }
+
+    private ListTag<Tag> readLazyList(String name) throws IOException {
+        int start = this.position;
+        this.skipPayload(ListTag.ID);
+        int typeId = this.buffer.get(start) & 0xFF;
+        return new ListTag<>(name, typeId, new LazySlice(this.buffer, start, this.position, this.format));
+    }
+
+    /**
+     * Skips the payload of a tag using the length prefixes of strings, arrays and lists.
+     */
+    void skipPayload(int id) throws IOException {
+        switch (id) {
+            case ByteTag.ID -> this.skip(Byte.BYTES);
+            case ShortTag.ID -> this.skip(Short.BYTES);
+            case IntTag.ID -> this.skipInts(1);
+            case LongTag.ID -> this.skipLongs(1);
+            case FloatTag.ID -> this.skip(Float.BYTES);
+            case DoubleTag.ID -> this.skip(Double.BYTES);
+            case ByteArrayTag.ID -> this.skip(this.readLength(1));
+            case StringTag.ID -> this.skip(this.readStringLength());
+            case ListTag.ID -> {
+                int typeId = this.readUnsignedByte();
+                int count = this.readInt();
+                if (count > 0 && typeId == 0) {
+                    throw new IOException("ListTag type is TAG_End but count is > 0");
+                }
+                int size = this.fixedSize(typeId);
+                if (count <= 0) {
+                    // A negative count is read as an empty list, as the stream readers do.
+                    return;
+                }
+                if (size > 0) {
+                    this.skip((long) count * size);
+                } else {
+                    for (int index = 0; index < count; index++) {
+                        this.skipPayload(typeId);
+                    }
+                }
+            }
+            case CompoundTag.ID -> {
+                try {
+                    int typeId;
+                    while ((typeId = this.readUnsignedByte()) != 0) {
+                        this.skip(this.readStringLength());
+                        this.skipPayload(typeId);
+                    }
+                } catch (EOFException e) {
+                    throw new IOException("Closing EndTag was not found!");
+                }
+            }
+            case IntArrayTag.ID -> this.skipInts(this.readLength(this.varInts() ? 1 : Integer.BYTES));
+            case LongArrayTag.ID -> this.skipLongs(this.readLength(this.varInts() ? 1 : Long.BYTES));
+            default -> throw new IOException("Failed to create tag.", new TagCreateException("Could not find tag with ID \"" + id + "\"."));
+        }
+    }
+
+    /**
+     * Gets the encoded size of a tag type, or 0 if it varies.
+     */
+    private int fixedSize(int id) {
+        return switch (id) {
+            case ByteTag.ID -> Byte.BYTES;
+            case ShortTag.ID -> Short.BYTES;
+            case IntTag.ID -> this.varInts() ? 0 : Integer.BYTES;
+            case LongTag.ID -> this.varInts() ? 0 : Long.BYTES;
+            case FloatTag.ID -> Float.BYTES;
+            case DoubleTag.ID -> Double.BYTES;
+            default -> 0;
+        };
+    }
+
+    private void skipInts(int count) throws IOException {
+        if (!this.varInts()) {
+            this.skip((long) count * Integer.BYTES);
+            return;
+        }
+        for (int index = 0; index < count; index++) {
+            this.readUnsignedVarInt();
+        }
+    }
+
+    private void skipLongs(int count) throws IOException {
+        if (!this.varInts()) {
+            this.skip((long) count * Long.BYTES);
+            return;
+        }
+        for (int index = 0; index < count; index++) {
+            this.readUnsignedVarLong();
+        }
+    }
+
+    /**
+     * Checks whether ints and longs are VarInts and VarLongs, as in the Bedrock network format.
+     */
+    private boolean varInts() {
+        return this.format == NBTFormat.BEDROCK_NETWORK;
+    }
+
+    private void skip(long count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Negative skip length: " + count);
+        }
+        if (this.limit - this.position < count) {
+            throw new EOFException();
+        }
+        this.position += (int) count;
+    }
+
+    private byte[] readByteArray(byte[] reuse) throws IOException {
+        int length = this.readLength(1);
+        byte[] value = reuse != null && reuse.length == length ? reuse : new byte[length];
+        this.buffer.get(this.position, value);
+        this.position += length;
+        return value;
+    }
+
+    private int[] readIntArray(int[] reuse) throws IOException {
+        if (this.varInts()) {
+            int length = this.readLength(1);
+            int[] value = reuse != null && reuse.length == length ? reuse : new int[length];
+            for (int index = 0; index < value.length; index++) {
+                value[index] = this.readInt();
+            }
+            return value;
+        }
+
+        int length = this.readLength(Integer.BYTES);
+        int[] value = reuse != null && reuse.length == length ? reuse : new int[length];
+        this.elements(length * Integer.BYTES).asIntBuffer().get(value);
+        return value;
+    }
+
+    private long[] readLongArray(long[] reuse) throws IOException {
+        if (this.varInts()) {
+            int length = this.readLength(1);
+            long[] value = reuse != null && reuse.length == length ? reuse : new long[length];
+            for (int index = 0; index < value.length; index++) {
+                value[index] = this.readLong();
+            }
+            return value;
+        }
+
+        int length = this.readLength(Long.BYTES);
+        long[] value = reuse != null && reuse.length == length ? reuse : new long[length];
+        this.elements(length * Long.BYTES).asLongBuffer().get(value);
+        return value;
+    }
+
+    private int readLength(int elementSize) throws IOException {
+        int length = this.readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length: " + length);
+        }
+        return this.checkLength(length, elementSize);
+    }
+
+    /**
+     * Checks that a number of elements of the given size are in the buffer and within the limits.
+     */
+    private int checkLength(int length, int elementSize) throws IOException {
+        if ((long) length * elementSize > this.limit - this.position) {
+            throw new EOFException();
+        }
+        if (this.budget != null) {
+            this.budget.checkArray(length, elementSize, this.position - this.start);
+        }
+        return length;
+    }
+
+    private String readString() throws IOException {
+        int length = this.readStringLength();
+        this.require(length);
+
+        byte[] bytes;
+        int offset;
+        if (this.buffer.hasArray()) {
+            bytes = this.buffer.array();
+            offset = this.buffer.arrayOffset() + this.position;
+        } else {
+            if (this.scratch == null || this.scratch.length < length) {
+                this.scratch = new byte[Math.max(length, this.scratch == null ? 64 : this.scratch.length * 2)];
+            }
+            this.buffer.get(this.position, this.scratch, 0, length);
+            bytes = this.scratch;
+            offset = 0;
+        }
+        this.position += length;
+
+        if (this.pool != null) {
+            return this.pool.get(bytes, offset, length, this.format == NBTFormat.JAVA);
+        }
+        return StringCodec.decode(bytes, offset, length, this.format == NBTFormat.JAVA);
+    }
+
+    private int readStringLength() throws IOException {
+        if (!this.varInts()) {
+            return this.readShort() & 0xFFFF;
+        }
+        int length = this.readUnsignedVarInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + (length & 0xFFFFFFFFL));
+        }
+        return length;
+    }
+
+    private void require(int count) throws EOFException {
+        if (this.limit - this.position < count) {
+            throw new EOFException();
+        }
+    }
+
+    private int readUnsignedByte() throws EOFException {
+        return this.readByte() & 0xFF;
+    }
+
+    private byte readByte() throws EOFException {
+        this.require(1);
+        return this.buffer.get(this.position++);
+    }
+
+    private short readShort() throws EOFException {
+        this.require(Short.BYTES);
+        short value = this.buffer.getShort(this.position);
+        this.position += Short.BYTES;
+        return value;
+    }
+
+    private int readInt() throws IOException {
+        if (this.varInts()) {
+            int value = this.readUnsignedVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+        this.require(Integer.BYTES);
+        int value = this.buffer.getInt(this.position);
+        this.position += Integer.BYTES;
+        return value;
+    }
+
+    private long readLong() throws IOException {
+        if (this.varInts()) {
+            long value = this.readUnsignedVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+        this.require(Long.BYTES);
+        long value = this.buffer.getLong(this.position);
+        this.position += Long.BYTES;
+        return value;
+    }
+
+    private float readFloat() throws EOFException {
+        this.require(Float.BYTES);
+        float value = this.buffer.getFloat(this.position);
+        this.position += Float.BYTES;
+        return value;
+    }
+
+    private double readDouble() throws EOFException {
+        this.require(Double.BYTES);
+        double value = this.buffer.getDouble(this.position);
+        this.position += Double.BYTES;
+        return value;
+    }
+
+    private int readUnsignedVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too big");
+    }
+
+    private long readUnsignedVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarLong is too big");
+    }
+}
@@ -0,0 +1,179 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.DataOutput;
+import java.io.UTFDataFormatException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataOutput} that encodes straight into a {@link ByteBuffer}, in any {@link NBTFormat}.
+ * <p>
+ * Primitives are relative puts on the buffer and arrays are copied in bulk through buffer views.
+ * Running out of space throws a {@link java.nio.BufferOverflowException}.
+ *
+ * @see NBTWriter#writeTag(ByteBuffer, tech.minediamond.micanbt.tag.Tag, NBTFormat)
+ */
+final class ByteBufferEncoder implements DataOutput {
+    private final ByteBuffer buffer;
+    private final NBTFormat format;
+    private byte[] scratch = new byte[64];
+
+    ByteBufferEncoder(ByteBuffer buffer, NBTFormat format) {
+        this.buffer = buffer.duplicate().order(format == NBTFormat.JAVA ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        this.format = format;
+    }
+
+    NBTFormat format() {
+        return this.format;
+    }
+
+    int position() {
+        return this.buffer.position();
+    }
+
+    void writeIntArray(int[] value) {
+        this.writeInt(value.length);
+        if (this.format == NBTFormat.BEDROCK_NETWORK) {
+            for (int element : value) {
+                this.writeInt(element);
+            }
+            return;
+        }
+        this.require((long) value.length * Integer.BYTES);
+        this.buffer.slice(this.buffer.position(), value.length * Integer.BYTES)
+                .order(this.buffer.order()).asIntBuffer().put(value);
+        this.buffer.position(this.buffer.position() + value.length * Integer.BYTES);
+    }
+
+    void writeLongArray(long[] value) {
+        this.writeInt(value.length);
+        if (this.format == NBTFormat.BEDROCK_NETWORK) {
+            for (long element : value) {
+                this.writeLong(element);
+            }
+            return;
+        }
+        this.require((long) value.length * Long.BYTES);
+        this.buffer.slice(this.buffer.position(), value.length * Long.BYTES)
+                .order(this.buffer.order()).asLongBuffer().put(value);
+        this.buffer.position(this.buffer.position() + value.length * Long.BYTES);
+    }
+
+    private void require(long count) {
+        if (this.buffer.remaining() < count) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        this.buffer.put(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        this.buffer.put(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        this.buffer.put((byte) (v ? 1 : 0));
+    }
+
+    @Override
+    public void writeByte(int v) {
+        this.buffer.put((byte) v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        this.buffer.putShort((short) v);
+    }
+
+    @Override
+    public void writeChar(int v) {
+        this.buffer.putChar((char) v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        if (this.format == NBTFormat.BEDROCK_NETWORK) {
+            this.writeUnsignedVarLong(Integer.toUnsignedLong((v << 1) ^ (v >> 31)));
+        } else {
+            this.buffer.putInt(v);
+        }
+    }
+
+    @Override
+    public void writeLong(long v) {
+        if (this.format == NBTFormat.BEDROCK_NETWORK) {
+            this.writeUnsignedVarLong((v << 1) ^ (v >> 63));
+        } else {
+            this.buffer.putLong(v);
+        }
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        this.buffer.putFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        this.buffer.putDouble(v);
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        for (int index = 0; index < s.length(); index++) {
+            this.buffer.put((byte) s.charAt(index));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) {
+        for (int index = 0; index < s.length(); index++) {
+            this.buffer.putChar(s.charAt(index));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws UTFDataFormatException {
+        boolean modifiedUtf8 = this.format == NBTFormat.JAVA;
+        int length = StringCodec.encodedLength(s, modifiedUtf8);
+        if (this.format == NBTFormat.BEDROCK_NETWORK) {
+            this.writeUnsignedVarLong(length);
+        } else if (length > 0xFFFF) {
+            throw StringCodec.tooLong(length);
+        } else {
+            this.buffer.putShort((short) length);
+        }
+
+        this.require(length);
+        int position = this.buffer.position();
+        if (this.buffer.hasArray()) {
+            StringCodec.encode(s, this.buffer.array(), this.buffer.arrayOffset() + position, modifiedUtf8);
+        } else {
+            if (this.scratch.length < length) {
+                this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+            }
+            StringCodec.encode(s, this.scratch, 0, modifiedUtf8);
+            this.buffer.put(position, this.scratch, 0, length);
+        }
+        this.buffer.position(position + length);
+    }
+
+    private void writeUnsignedVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+}
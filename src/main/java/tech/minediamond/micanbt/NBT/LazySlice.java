@@ -0,0 +1,68 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.CompoundTag;
+import tech.minediamond.micanbt.tag.LazyPayload;
+import tech.minediamond.micanbt.tag.ListTag;
+import tech.minediamond.micanbt.tag.Tag;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The payload of a lazy compound or list, as a range of the buffer it was read from.
+ * <p>
+ * A compound payload spans its entries including the closing end tag,
+ * a list payload spans its element type, length and elements.
+ */
+final class LazySlice implements LazyPayload {
+    private static final int COPY_CHUNK_SIZE = 8192;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+    private final NBTFormat format;
+
+    LazySlice(ByteBuffer buffer, int start, int end, NBTFormat format) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        this.format = format;
+    }
+
+    @Override
+    public void decodeInto(CompoundTag compound) throws IOException {
+        this.decoder().readEntries(compound);
+    }
+
+    @Override
+    public void decodeInto(ListTag<Tag> list) throws IOException {
+        this.decoder().readElements(list);
+    }
+
+    private ByteBufferDecoder decoder() {
+        return new ByteBufferDecoder(this.buffer, this.start, this.end, this.format, true, null);
+    }
+
+    @Override
+    public boolean writeTo(DataOutput out) throws IOException {
+        // Outputs of unknown formats get the payload re-encoded through their own methods.
+        if (NBTWriter.formatOf(out) != this.format) {
+            return false;
+        }
+
+        int length = this.end - this.start;
+        if (out instanceof SizeCounter counter) {
+            counter.add(length);
+        } else if (this.buffer.hasArray()) {
+            out.write(this.buffer.array(), this.buffer.arrayOffset() + this.start, length);
+        } else {
+            byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+            for (int offset = 0; offset < length; offset += chunk.length) {
+                int count = Math.min(chunk.length, length - offset);
+                this.buffer.get(this.start + offset, chunk, 0, count);
+                out.write(chunk, 0, count);
+            }
+        }
+        return true;
+    }
+}
@@ -1,12 +1,19 @@
 package tech.minediamond.micanbt.NBT;
 
+import tech.minediamond.micanbt.compression.CompressionCodec;
 import tech.minediamond.micanbt.tag.CompoundTag;
 import tech.minediamond.micanbt.tag.Tag;
 
 import java.io.DataInput;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 public class NBT {
 
@@ -22,10 +29,92 @@ public class NBT {
         return NBTReader.read(path, compressed, littleEndian);
     }
 
+    public static CompoundTag read(Path path, CompressionCodec codec, boolean littleEndian) throws IOException {
+        return NBTReader.read(path, codec, littleEndian);
+    }
+
+    public static CompoundTag read(Path path, NBTReadOptions options) throws IOException {
+        return NBTReader.read(path, options);
+    }
+
+    public static CompoundTag read(InputStream in, NBTReadOptions options) throws IOException {
+        return NBTReader.read(in, options);
+    }
+
+    public static CompoundTag read(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return NBTReader.read(buffer, options);
+    }
+
     public static CompoundTag read(InputStream in, boolean littleEndian) throws IOException {
         return NBTReader.read(in, littleEndian);
     }
 
+    public static CompoundTag read(InputStream in, NBTFormat format) throws IOException {
+        return NBTReader.read(in, format);
+    }
+
+    public static CompoundTag read(ByteBuffer buffer, NBTFormat format) throws IOException {
+        return NBTReader.read(buffer, format);
+    }
+
+    public static CompoundTag readInto(InputStream in, NBTFormat format, CompoundTag target) throws IOException {
+        return NBTReader.readInto(in, format, target);
+    }
+
+    public static CompoundTag readInto(ByteBuffer buffer, NBTFormat format, CompoundTag target) throws IOException {
+        return NBTReader.readInto(buffer, format, target);
+    }
+
+    public static CompoundTag readInto(InputStream in, NBTReadOptions options, CompoundTag target) throws IOException {
+        return NBTReader.readInto(in, options, target);
+    }
+
+    public static CompoundTag readInto(ByteBuffer buffer, NBTReadOptions options, CompoundTag target) throws IOException {
+        return NBTReader.readInto(buffer, options, target);
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths) {
+        return NBTReader.readAll(paths);
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, Executor decodeExecutor) {
+        return NBTReader.readAll(paths, decodeExecutor);
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, boolean littleEndian,
+                                                Executor ioExecutor, Executor decodeExecutor) {
+        return NBTReader.readAll(paths, littleEndian, ioExecutor, decodeExecutor);
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, NBTReadOptions options,
+                                                Executor ioExecutor, Executor decodeExecutor) {
+        return NBTReader.readAll(paths, options, ioExecutor, decodeExecutor);
+    }
+
+    public static CompletableFuture<CompoundTag> readAsync(Path path) {
+        return NBTReader.readAsync(path);
+    }
+
+    public static CompletableFuture<CompoundTag> readAsync(Path path, boolean littleEndian, Executor executor) {
+        return NBTReader.readAsync(path, littleEndian, executor);
+    }
+
+    public static CompletableFuture<CompoundTag> readAsync(Path path, NBTReadOptions options, Executor executor) {
+        return NBTReader.readAsync(path, options, executor);
+    }
+
+    public static CompoundTag readLazy(Path path) throws IOException {
+        return NBTReader.readLazy(path);
+    }
+
+    public static CompoundTag readLazy(Path path, boolean littleEndian) throws IOException {
+        return NBTReader.readLazy(path, littleEndian);
+    }
+
+    public static CompoundTag readLazy(ByteBuffer buffer, NBTFormat format) throws IOException {
+        return NBTReader.readLazy(buffer, format);
+    }
+
     public static Tag parse(InputStream in) throws IOException {
         return NBTReader.read(in);
     }
@@ -34,10 +123,66 @@ public class NBT {
         return NBTReader.readTag(in, littleEndian);
     }
 
+    public static Tag parse(InputStream in, NBTFormat format) throws IOException {
+        return NBTReader.readTag(in, format);
+    }
+
     public static Tag parse(DataInput in) throws IOException {
         return NBTReader.readTag(in);
     }
 
+    public static Tag parse(ByteBuffer buffer) throws IOException {
+        return NBTReader.readTag(buffer);
+    }
+
+    public static Tag parse(ByteBuffer buffer, NBTFormat format) throws IOException {
+        return NBTReader.readTag(buffer, format);
+    }
+
+    public static Tag parse(InputStream in, NBTReadOptions options) throws IOException {
+        return NBTReader.readTag(in, options);
+    }
+
+    public static Tag parse(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return NBTReader.readTag(buffer, options);
+    }
+
+    public static Tag parseUnnamed(InputStream in, NBTFormat format) throws IOException {
+        return NBTReader.readUnnamedTag(in, format);
+    }
+
+    public static Tag parseUnnamed(ByteBuffer buffer, NBTFormat format) throws IOException {
+        return NBTReader.readUnnamedTag(buffer, format);
+    }
+
+    public static Tag parseUnnamed(InputStream in, NBTReadOptions options) throws IOException {
+        return NBTReader.readUnnamedTag(in, options);
+    }
+
+    public static Tag parseUnnamed(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return NBTReader.readUnnamedTag(buffer, options);
+    }
+
+    public static Tag parseUnnamed(DataInput in) throws IOException {
+        return NBTReader.readUnnamedTag(in);
+    }
+
+    public static void accept(Path path, NBTVisitor visitor) throws IOException {
+        NBTReader.accept(path, visitor);
+    }
+
+    public static void accept(Path path, boolean littleEndian, NBTVisitor visitor) throws IOException {
+        NBTReader.accept(path, littleEndian, visitor);
+    }
+
+    public static void accept(InputStream in, NBTVisitor visitor) throws IOException {
+        NBTReader.accept(in, NBTFormat.JAVA, visitor);
+    }
+
+    public static void accept(InputStream in, NBTFormat format, NBTVisitor visitor) throws IOException {
+        NBTReader.accept(in, format, visitor);
+    }
+
     public static void write(CompoundTag tag, Path path) throws IOException {
         NBTWriter.write(tag, path);
     }
@@ -45,4 +190,41 @@ public class NBT {
     public static void write(CompoundTag tag, Path path, boolean compressed, boolean littleEndian) throws IOException {
         NBTWriter.write(tag, path, compressed, littleEndian);
     }
+
+    public static void write(CompoundTag tag, Path path, CompressionCodec codec, boolean littleEndian) throws IOException {
+        NBTWriter.write(tag, path, codec, littleEndian);
+    }
+
+    public static CompletableFuture<Void> writeAsync(CompoundTag tag, Path path) {
+        return NBTWriter.writeAsync(tag, path);
+    }
+
+    public static CompletableFuture<Void> writeAsync(CompoundTag tag, Path path, CompressionCodec codec,
+                                                     boolean littleEndian, Executor executor) {
+        return NBTWriter.writeAsync(tag, path, codec, littleEndian, executor);
+    }
+
+    public static void write(Tag tag, OutputStream out, NBTFormat format) throws IOException {
+        NBTWriter.writeTag(out, tag, format);
+    }
+
+    public static void writeUnnamed(Tag tag, OutputStream out, NBTFormat format) throws IOException {
+        NBTWriter.writeUnnamedTag(out, tag, format);
+    }
+
+    public static void write(Tag tag, ByteBuffer buffer, NBTFormat format) throws IOException {
+        NBTWriter.writeTag(buffer, tag, format);
+    }
+
+    public static void writeUnnamed(Tag tag, ByteBuffer buffer, NBTFormat format) throws IOException {
+        NBTWriter.writeUnnamedTag(buffer, tag, format);
+    }
+
+    public static long sizeOf(Tag tag, NBTFormat format) throws IOException {
+        return NBTWriter.sizeOf(tag, format);
+    }
+
+    public static long sizeOfUnnamed(Tag tag, NBTFormat format) throws IOException {
+        return NBTWriter.sizeOfUnnamed(tag, format);
+    }
 }
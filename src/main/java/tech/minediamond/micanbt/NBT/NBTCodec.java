@@ -0,0 +1,1010 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.*;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Maps records and plain classes to and from binary NBT compounds, without building any {@link Tag} in between.
+ * <p>
+ * Every record component, or every non-static, non-transient field of a class and its superclasses, is stored under its
+ * name. Supported types are primitives and their wrappers (booleans as bytes), {@link String}, {@code byte[]},
+ * {@code int[]}, {@code long[]}, enums (by name), tags, other records and classes (as compounds), {@link List} (as
+ * lists) and {@link Map} with string keys (as compounds). Null references are left out when writing; missing or
+ * mismatching entries are left at their default when reading, and unknown entries are skipped.
+ * <p>
+ * Records are created through their canonical constructor, other classes need a constructor without parameters.
+ * Accessors and constructors are bound once, on first use, to method handles, and record accessors to classes spun by
+ * {@link LambdaMetafactory}, so encoding and decoding do not use reflection. The classes have to be accessible to this
+ * library, which is the case on the class path and for packages opened to it.
+ * <pre>{@code
+ * record Item(String id, byte count, List<String> lore) {}
+ *
+ * NBTCodec<Item> codec = NBTCodec.of(Item.class);
+ * codec.write(out, new Item("minecraft:stone", (byte) 64, List.of()), NBTFormat.JAVA);
+ * Item item = codec.read(in, NBTFormat.JAVA);
+ * }</pre>
+ *
+ * @param <T> The mapped type.
+ */
+public final class NBTCodec<T> {
+    private static final ClassValue<NBTCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected NBTCodec<?> computeValue(Class<?> type) {
+            return new NBTCodec<>(type);
+        }
+    };
+    /**
+     * Returned by {@link Value#read(DataInput, int)} for data that was skipped.
+     */
+    private static final Object SKIPPED = new Object();
+    /**
+     * Layouts created by the current thread that are not published yet, because the types they refer to are still
+     * being checked.
+     */
+    private static final ThreadLocal<Map<NBTCodec<?>, Layout>> PENDING = ThreadLocal.withInitial(HashMap::new);
+    private static final MethodHandle LONG_ELEMENT = MethodHandles.arrayElementGetter(long[].class);
+    private static final MethodHandle OBJECT_ELEMENT = MethodHandles.arrayElementGetter(Object[].class);
+    private static final MethodHandle LONG_BITS_TO_DOUBLE;
+
+    static {
+        try {
+            LONG_BITS_TO_DOUBLE = MethodHandles.lookup().findStatic(Double.class, "longBitsToDouble",
+                    MethodType.methodType(double.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<T> type;
+    private volatile Layout layout;
+
+    private NBTCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the codec for a record or class, creating it on first use.
+     *
+     * @param type The mapped type.
+     * @param <T>  The mapped type.
+     * @return The codec, shared by all callers.
+     * @throws IllegalArgumentException If the type or the type of one of its properties cannot be mapped.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: codecs are created for the class they are stored under
+    public static <T> NBTCodec<T> of(Class<T> type) {
+        NBTCodec<T> codec = (NBTCodec<T>) CODECS.get(type);
+        codec.layout();
+        return codec;
+    }
+
+    /**
+     * Gets the type mapped by this codec.
+     *
+     * @return The mapped type.
+     */
+    public Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Reads a named root compound from a stream into a new object, see {@link #read(DataInput)}.
+     *
+     * @param in     Stream to read from.
+     * @param format Format of the data.
+     * @return The read object.
+     * @throws IOException If an I/O error occurs, the data is malformed or the object cannot be created from it.
+     */
+    public T read(InputStream in, NBTFormat format) throws IOException {
+        return this.read(in, NBTReadOptions.of(format));
+    }
+
+    /**
+     * Reads a named root compound from a stream into a new object with the given options, see
+     * {@link #read(DataInput)}. The limits of the options are enforced like when reading tags.
+     *
+     * @param in      Stream to read from.
+     * @param options Format, string pool and limits to read with.
+     * @return The read object.
+     * @throws IOException              If an I/O error occurs, the data is malformed, a limit is exceeded or the object
+     *                                  cannot be created from it.
+     * @throws IllegalArgumentException If the options select paths, which objects cannot be read from.
+     * @see NBTReadOptions
+     */
+    public T read(InputStream in, NBTReadOptions options) throws IOException {
+        if (options.getPaths() != null) {
+            throw new IllegalArgumentException("Paths cannot be selected when reading an object.");
+        }
+        return this.read(NBTReader.dataInput(in, options, false));
+    }
+
+    /**
+     * Reads a named root compound into a new object. The name of the root is ignored.
+     *
+     * @param in Stream to read from.
+     * @return The read object.
+     * @throws IOException If an I/O error occurs, the data is malformed or the object cannot be created from it.
+     */
+    public T read(DataInput in) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id != CompoundTag.ID) {
+            throw new IOException("Root tag is not a CompoundTag! Found ID: " + id);
+        }
+        in.readUTF();
+        return this.readPayload(in);
+    }
+
+    /**
+     * Reads the entries of a compound payload, up to and including its end tag, into a new object.
+     *
+     * @param in Stream to read from.
+     * @return The read object.
+     * @throws IOException If an I/O error occurs, the data is malformed or the object cannot be created from it.
+     */
+    public T readPayload(DataInput in) throws IOException {
+        NBTReadLimits.Budget budget = in instanceof BufferedDataInputStream stream ? stream.budget() : null;
+        if (budget == null) {
+            return this.decode(in);
+        }
+
+        budget.enter(true, ((BufferedDataInputStream) in).consumed());
+        T value = this.decode(in);
+        budget.exit(true);
+        return value;
+    }
+
+    private T decode(DataInput in) throws IOException {
+        Layout layout = this.layout();
+        Property[] properties = layout.properties;
+        Object instance = layout.record ? null : layout.newInstance();
+        Object[] references = layout.record ? new Object[properties.length] : null;
+        long[] primitives = layout.record ? new long[properties.length] : null;
+        try {
+            int next = 0;
+            int id;
+            while ((id = in.readUnsignedByte()) != 0) {
+                String name = in.readUTF();
+                // Entries usually come in the order they were written in, which saves the lookup.
+                int index = next < properties.length && properties[next].key.equals(name) ? next : layout.indexOf(name);
+                if (index < 0 || !properties[index].accepts(id)) {
+                    NBTStreamParser.skipPayload(in, id);
+                    continue;
+                }
+
+                Property property = properties[index];
+                if (property.value == null) {
+                    long bits = property.readBits(in);
+                    if (layout.record) {
+                        primitives[index] = bits;
+                    } else {
+                        property.set(instance, bits);
+                    }
+                } else {
+                    Object value = readValue(property.value, in, id);
+                    if (value != SKIPPED) {
+                        if (layout.record) {
+                            references[index] = value;
+                        } else {
+                            property.set(instance, value);
+                        }
+                    }
+                }
+                next = index + 1;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Closing EndTag was not found!");
+        }
+        return this.type.cast(layout.record ? layout.create(references, primitives) : instance);
+    }
+
+    /**
+     * Writes an object as a root compound with an empty name to a stream.
+     *
+     * @param out    Stream to write to.
+     * @param value  Object to write.
+     * @param format Format to write in.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(OutputStream out, T value, NBTFormat format) throws IOException {
+        DataOutput dataOut = NBTWriter.dataOutput(out, format);
+        this.write(dataOut, value);
+        NBTWriter.drain(dataOut);
+    }
+
+    /**
+     * Writes an object as a root compound with an empty name.
+     *
+     * @param out   Stream to write to.
+     * @param value Object to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(DataOutput out, T value) throws IOException {
+        this.write(out, "", value);
+    }
+
+    /**
+     * Writes an object as a named root compound.
+     *
+     * @param out   Stream to write to.
+     * @param name  Name of the root compound.
+     * @param value Object to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(DataOutput out, String name, T value) throws IOException {
+        out.writeByte(CompoundTag.ID);
+        out.writeUTF(name);
+        this.writePayload(out, value);
+    }
+
+    /**
+     * Writes the entries of an object followed by an end tag, which is the payload of a compound.
+     *
+     * @param out   Stream to write to.
+     * @param value Object to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writePayload(DataOutput out, T value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        for (Property property : this.layout().properties) {
+            property.write(out, value);
+        }
+        out.writeByte(0);
+    }
+
+    private Layout layout() {
+        Layout layout = this.layout;
+        if (layout != null) {
+            return layout;
+        }
+
+        Map<NBTCodec<?>, Layout> pending = PENDING.get();
+        layout = pending.get(this);
+        if (layout != null) {
+            // This type refers back to itself, and is already being checked further up.
+            return layout;
+        }
+        boolean outermost = pending.isEmpty();
+        try {
+            layout = new Layout(this.type);
+            pending.put(this, layout);
+            for (Property property : layout.properties) {
+                if (property.value != null) {
+                    property.value.resolve();
+                }
+            }
+            if (outermost) {
+                // Types referring to each other are published together, once all of them have been checked.
+                pending.forEach((codec, checked) -> codec.layout = checked);
+            }
+        } finally {
+            if (outermost) {
+                PENDING.remove();
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * The properties of a type and the handles to create it, bound on first use.
+     */
+    private static final class Layout {
+        private final boolean record;
+        private final Property[] properties;
+        private final Map<String, Integer> indices = new HashMap<>();
+        /**
+         * For records {@code (Object[], long[])Object}, taking reference and primitive arguments by component index.
+         * For other classes {@code ()Object}.
+         */
+        private final MethodHandle factory;
+
+        private Layout(Class<?> type) {
+            if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface()
+                    || Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Cannot map " + type.getName() + " to a compound.");
+            }
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + " is not accessible, its package has to be opened.", e);
+            }
+
+            this.record = type.isRecord();
+            try {
+                if (this.record) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    this.properties = new Property[components.length];
+                    for (int index = 0; index < components.length; index++) {
+                        RecordComponent component = components[index];
+                        MethodHandle accessor = lookup.unreflect(component.getAccessor());
+                        this.properties[index] = new Property(component.getName(), component.getType(),
+                                valueOf(component.getGenericType(), component.getName(), type),
+                                getter(lookup, accessor, type, component.getType(), true), null);
+                    }
+                    this.factory = recordFactory(lookup, type, components);
+                } else {
+                    List<Property> properties = new ArrayList<>();
+                    collectFields(lookup, type, type, properties);
+                    this.properties = properties.toArray(new Property[0]);
+                    this.factory = lookup.findConstructor(type, MethodType.methodType(void.class))
+                            .asType(MethodType.methodType(Object.class));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot map " + type.getName() + ": " + e.getMessage(), e);
+            }
+            for (int index = 0; index < this.properties.length; index++) {
+                this.indices.put(this.properties[index].key, index);
+            }
+        }
+
+        private static void collectFields(MethodHandles.Lookup lookup, Class<?> owner, Class<?> type,
+                                          List<Property> properties) throws IllegalAccessException {
+            Class<?> superclass = type.getSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                collectFields(lookup, owner, superclass, properties);
+            }
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                if (Modifier.isFinal(modifiers)) {
+                    // Final instance fields can only be set through an accessible field.
+                    field.trySetAccessible();
+                }
+
+                Class<?> fieldType = field.getType();
+                MethodHandle setter = lookup.unreflectSetter(field);
+                if (fieldType.isPrimitive()) {
+                    setter = MethodHandles.filterArguments(setter, 1, fromBits(fieldType));
+                    setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+                } else {
+                    setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                }
+                properties.add(new Property(field.getName(), fieldType, valueOf(field.getGenericType(), field.getName(), owner),
+                        getter(lookup, lookup.unreflectGetter(field), type, fieldType, false), setter));
+            }
+        }
+
+        private int indexOf(String key) {
+            Integer index = this.indices.get(key);
+            return index == null ? -1 : index;
+        }
+
+        private Object newInstance() throws IOException {
+            try {
+                return (Object) this.factory.invokeExact();
+            } catch (Throwable e) {
+                throw failedToCreate(e);
+            }
+        }
+
+        private Object create(Object[] references, long[] primitives) throws IOException {
+            try {
+                return (Object) this.factory.invokeExact(references, primitives);
+            } catch (Throwable e) {
+                throw failedToCreate(e);
+            }
+        }
+
+        private static IOException failedToCreate(Throwable e) {
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return new IOException("Failed to create object.", e);
+        }
+    }
+
+    /**
+     * Binds the canonical constructor to {@code (Object[], long[])Object}, so the values can be collected in two arrays
+     * instead of being boxed one by one.
+     */
+    private static MethodHandle recordFactory(MethodHandles.Lookup lookup, Class<?> type, RecordComponent[] components)
+            throws ReflectiveOperationException {
+        Class<?>[] parameters = new Class<?>[components.length];
+        MethodHandle[] extractors = new MethodHandle[components.length];
+        int[] reorder = new int[components.length];
+        for (int index = 0; index < components.length; index++) {
+            Class<?> parameter = parameters[index] = components[index].getType();
+            if (parameter.isPrimitive()) {
+                extractors[index] = MethodHandles.filterReturnValue(
+                        MethodHandles.insertArguments(LONG_ELEMENT, 1, index), fromBits(parameter));
+                reorder[index] = 1;
+            } else {
+                extractors[index] = MethodHandles.insertArguments(OBJECT_ELEMENT, 1, index)
+                        .asType(MethodType.methodType(parameter, Object[].class));
+            }
+        }
+
+        MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameters));
+        MethodHandle filtered = MethodHandles.filterArguments(constructor, 0, extractors);
+        return MethodHandles.permuteArguments(filtered, MethodType.methodType(type, Object[].class, long[].class), reorder)
+                .asType(MethodType.methodType(Object.class, Object[].class, long[].class));
+    }
+
+    /**
+     * Gets a handle converting the raw bits a primitive is stored as, see {@link Property#readBits(DataInput)}, back to it.
+     */
+    private static MethodHandle fromBits(Class<?> primitive) {
+        if (primitive == double.class || primitive == float.class) {
+            return MethodHandles.explicitCastArguments(LONG_BITS_TO_DOUBLE, MethodType.methodType(primitive, long.class));
+        }
+        return MethodHandles.explicitCastArguments(MethodHandles.identity(long.class), MethodType.methodType(primitive, long.class));
+    }
+
+    /**
+     * Creates the getter of a property: a {@link ToLongFunction} for integral types, a {@link ToDoubleFunction} for
+     * floating point types, a {@link Predicate} for booleans and a {@link Function} otherwise.
+     * Accessor methods are spun into a class implementing the interface, fields are read through the handle.
+     */
+    private static Object getter(MethodHandles.Lookup lookup, MethodHandle handle, Class<?> owner, Class<?> type, boolean method) {
+        Class<?> functionType;
+        String name;
+        Class<?> returnType;
+        if (type == boolean.class) {
+            functionType = Predicate.class;
+            name = "test";
+            returnType = boolean.class;
+        } else if (type == float.class || type == double.class) {
+            functionType = ToDoubleFunction.class;
+            name = "applyAsDouble";
+            returnType = double.class;
+        } else if (type.isPrimitive()) {
+            functionType = ToLongFunction.class;
+            name = "applyAsLong";
+            returnType = long.class;
+        } else {
+            functionType = Function.class;
+            name = "apply";
+            returnType = Object.class;
+        }
+
+        if (method) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, name, MethodType.methodType(functionType),
+                        MethodType.methodType(returnType, Object.class), handle,
+                        MethodType.methodType(returnType == Object.class ? type : returnType, owner));
+                return site.getTarget().invoke();
+            } catch (Throwable e) {
+                // Fall back to the handle, for example when the class cannot be spun in the owner's module.
+            }
+        }
+
+        MethodHandle erased = handle.asType(MethodType.methodType(returnType, Object.class));
+        if (functionType == Predicate.class) {
+            return (Predicate<Object>) object -> {
+                try {
+                    return (boolean) erased.invokeExact(object);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } else if (functionType == ToDoubleFunction.class) {
+            return (ToDoubleFunction<Object>) object -> {
+                try {
+                    return (double) erased.invokeExact(object);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } else if (functionType == ToLongFunction.class) {
+            return (ToLongFunction<Object>) object -> {
+                try {
+                    return (long) erased.invokeExact(object);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        return (Function<Object, Object>) object -> {
+            try {
+                return (Object) erased.invokeExact(object);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return new UndeclaredThrowableException(e);
+    }
+
+    /**
+     * A record component or field. Primitives are handled by the property itself and stored as raw bits, see
+     * {@link #readBits(DataInput)}, everything else goes through its {@link Value}.
+     */
+    private static final class Property {
+        private final String key;
+        private final int id;
+        private final boolean bool;
+        private final Value value;
+        private final Object getter;
+        /**
+         * For classes {@code (Object, long)void} or {@code (Object, Object)void}, null for records.
+         */
+        private final MethodHandle setter;
+
+        private Property(String key, Class<?> type, Value value, Object getter, MethodHandle setter) {
+            this.key = key;
+            this.bool = type == boolean.class;
+            this.value = type.isPrimitive() ? null : value;
+            this.id = value.id;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private boolean accepts(int id) {
+            return this.value == null ? id == this.id : this.value.accepts(id);
+        }
+
+        /**
+         * Reads a primitive: integral types sign-extended, booleans as 0 or 1 and floating point types as the raw bits
+         * of a double.
+         */
+        private long readBits(DataInput in) throws IOException {
+            return switch (this.id) {
+                case ByteTag.ID -> this.bool ? (in.readByte() != 0 ? 1 : 0) : in.readByte();
+                case ShortTag.ID -> in.readShort();
+                case IntTag.ID -> in.readInt();
+                case LongTag.ID -> in.readLong();
+                case FloatTag.ID -> Double.doubleToRawLongBits(in.readFloat());
+                default -> Double.doubleToRawLongBits(in.readDouble());
+            };
+        }
+
+        private void set(Object instance, long bits) throws IOException {
+            try {
+                this.setter.invokeExact(instance, bits);
+            } catch (Throwable e) {
+                throw Layout.failedToCreate(e);
+            }
+        }
+
+        private void set(Object instance, Object value) throws IOException {
+            try {
+                this.setter.invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw Layout.failedToCreate(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked") // Safe cast: the getter type is chosen by the property type, see getter()
+        private void write(DataOutput out, Object owner) throws IOException {
+            if (this.value != null) {
+                Object value = ((Function<Object, Object>) this.getter).apply(owner);
+                if (value != null) {
+                    out.writeByte(this.value.idOf(value));
+                    out.writeUTF(this.key);
+                    this.value.write(out, value);
+                }
+                return;
+            }
+
+            out.writeByte(this.id);
+            out.writeUTF(this.key);
+            switch (this.id) {
+                case ByteTag.ID -> out.writeByte(this.bool
+                        ? (((Predicate<Object>) this.getter).test(owner) ? 1 : 0)
+                        : (int) ((ToLongFunction<Object>) this.getter).applyAsLong(owner));
+                case ShortTag.ID -> out.writeShort((int) ((ToLongFunction<Object>) this.getter).applyAsLong(owner));
+                case IntTag.ID -> out.writeInt((int) ((ToLongFunction<Object>) this.getter).applyAsLong(owner));
+                case LongTag.ID -> out.writeLong(((ToLongFunction<Object>) this.getter).applyAsLong(owner));
+                case FloatTag.ID -> out.writeFloat((float) ((ToDoubleFunction<Object>) this.getter).applyAsDouble(owner));
+                default -> out.writeDouble(((ToDoubleFunction<Object>) this.getter).applyAsDouble(owner));
+            }
+        }
+    }
+
+    /**
+     * Reads and writes the payload of one kind of value.
+     */
+    private abstract static class Value {
+        /**
+         * Tag id of the value, or -1 if it depends on the value.
+         */
+        final int id;
+
+        Value(int id) {
+            this.id = id;
+        }
+
+        boolean accepts(int id) {
+            return id == this.id;
+        }
+
+        int idOf(Object value) {
+            return this.id;
+        }
+
+        /**
+         * Checks the types this value refers to, before the referring layout is published.
+         */
+        void resolve() {
+        }
+
+        abstract void write(DataOutput out, Object value) throws IOException;
+
+        /**
+         * Reads a payload of an accepted type.
+         *
+         * @return The value, or {@link #SKIPPED} if it was skipped.
+         */
+        abstract Object read(DataInput in, int id) throws IOException;
+    }
+
+    /**
+     * Reads a payload of an accepted type. The limits of the stream, if any, are enforced like for
+     * {@link NBTReader#readPayload(DataInput, int, String)}.
+     *
+     * @return The value, or {@link #SKIPPED} if it was skipped.
+     */
+    private static Object readValue(Value value, DataInput in, int id) throws IOException {
+        NBTReadLimits.Budget budget = in instanceof BufferedDataInputStream stream ? stream.budget() : null;
+        if (budget == null) {
+            return value.read(in, id);
+        }
+
+        boolean container = id == CompoundTag.ID || id == ListTag.ID;
+        budget.enter(container, ((BufferedDataInputStream) in).consumed());
+        Object read = value.read(in, id);
+        budget.exit(container);
+        return read;
+    }
+
+    private static Value valueOf(Type genericType, String property, Class<?> owner) {
+        Class<?> type = rawType(genericType);
+        if (type == null) {
+            throw unsupported(genericType, property, owner);
+        }
+        if (type == byte.class || type == Byte.class || type == boolean.class || type == Boolean.class) {
+            boolean bool = type == boolean.class || type == Boolean.class;
+            return new Value(ByteTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeByte(bool ? ((Boolean) value ? 1 : 0) : (Byte) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    byte value = in.readByte();
+                    return bool ? (Object) (value != 0) : (Object) value;
+                }
+            };
+        } else if (type == short.class || type == Short.class) {
+            return new Value(ShortTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeShort((Short) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readShort();
+                }
+            };
+        } else if (type == int.class || type == Integer.class) {
+            return new Value(IntTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeInt((Integer) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readInt();
+                }
+            };
+        } else if (type == long.class || type == Long.class) {
+            return new Value(LongTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeLong((Long) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readLong();
+                }
+            };
+        } else if (type == float.class || type == Float.class) {
+            return new Value(FloatTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeFloat((Float) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readFloat();
+                }
+            };
+        } else if (type == double.class || type == Double.class) {
+            return new Value(DoubleTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeDouble((Double) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readDouble();
+                }
+            };
+        } else if (type == String.class) {
+            return new Value(StringTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    out.writeUTF((String) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return in.readUTF();
+                }
+            };
+        } else if (type == byte[].class) {
+            return new Value(ByteArrayTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    NBTWriter.writeByteArray(out, (byte[]) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return NBTReader.readByteArray(in);
+                }
+            };
+        } else if (type == int[].class) {
+            return new Value(IntArrayTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    NBTWriter.writeIntArray(out, (int[]) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return NBTReader.readIntArray(in);
+                }
+            };
+        } else if (type == long[].class) {
+            return new Value(LongArrayTag.ID) {
+                @Override
+                void write(DataOutput out, Object value) throws IOException {
+                    NBTWriter.writeLongArray(out, (long[]) value);
+                }
+
+                @Override
+                Object read(DataInput in, int id) throws IOException {
+                    return NBTReader.readLongArray(in);
+                }
+            };
+        } else if (type.isEnum()) {
+            return enumValue(type);
+        } else if (Tag.class.isAssignableFrom(type)) {
+            return tagValue(type);
+        } else if (type == List.class || type == Collection.class || type == Iterable.class || type == ArrayList.class) {
+            return listValue(valueOf(typeArgument(genericType, 0, property, owner), property, owner));
+        } else if (type == Map.class || type == LinkedHashMap.class) {
+            if (typeArgument(genericType, 0, property, owner) != String.class) {
+                throw unsupported(genericType, property, owner);
+            }
+            return mapValue(valueOf(typeArgument(genericType, 1, property, owner), property, owner));
+        } else if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                || type.getName().startsWith("java.")) {
+            throw unsupported(genericType, property, owner);
+        }
+        return compoundValue(type);
+    }
+
+    private static Value enumValue(Class<?> type) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name(), constant);
+        }
+        return new Value(StringTag.ID) {
+            @Override
+            void write(DataOutput out, Object value) throws IOException {
+                out.writeUTF(((Enum<?>) value).name());
+            }
+
+            @Override
+            Object read(DataInput in, int id) throws IOException {
+                Object constant = constants.get(in.readUTF());
+                return constant == null ? SKIPPED : constant;
+            }
+        };
+    }
+
+    private static Value tagValue(Class<?> type) {
+        int tagId = -1;
+        try {
+            if (!Modifier.isAbstract(type.getModifiers())) {
+                tagId = ((Tag) type.getConstructor(String.class).newInstance("")).getTagId();
+            }
+        } catch (ReflectiveOperationException e) {
+            // Only the tag type itself is known then, tags are checked when read.
+        }
+        return new Value(tagId) {
+            @Override
+            boolean accepts(int id) {
+                return this.id < 0 || id == this.id;
+            }
+
+            @Override
+            int idOf(Object value) {
+                return ((Tag) value).getTagId();
+            }
+
+            @Override
+            void write(DataOutput out, Object value) throws IOException {
+                ((Tag) value).write(out);
+            }
+
+            @Override
+            Object read(DataInput in, int id) throws IOException {
+                Tag tag = NBTReader.createTag(id, "");
+                tag.read(in);
+                return type.isInstance(tag) ? tag : SKIPPED;
+            }
+        };
+    }
+
+    private static Value compoundValue(Class<?> type) {
+        NBTCodec<?> codec = CODECS.get(type);
+        return new Value(CompoundTag.ID) {
+            @Override
+            void resolve() {
+                codec.layout();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked") // Safe cast: only values of the property type are written
+            void write(DataOutput out, Object value) throws IOException {
+                ((NBTCodec<Object>) codec).writePayload(out, value);
+            }
+
+            @Override
+            Object read(DataInput in, int id) throws IOException {
+                return codec.decode(in);
+            }
+        };
+    }
+
+    private static Value listValue(Value element) {
+        return new Value(ListTag.ID) {
+            @Override
+            void resolve() {
+                element.resolve();
+            }
+
+            @Override
+            void write(DataOutput out, Object value) throws IOException {
+                Collection<?> elements = (Collection<?>) value;
+                int typeId = element.id;
+                if (typeId < 0) {
+                    typeId = elements.isEmpty() ? 0 : element.idOf(elements.iterator().next());
+                }
+                out.writeByte(typeId);
+                out.writeInt(elements.size());
+                for (Object item : elements) {
+                    if (item == null) {
+                        throw new IllegalArgumentException("tag is null");
+                    }
+                    int incomingId = element.idOf(item);
+                    if (incomingId != typeId) {
+                        throw new IllegalArgumentException(String.format("Tag type mismatch. Expected ID: %d, got: %d", typeId, incomingId));
+                    }
+                    element.write(out, item);
+                }
+            }
+
+            @Override
+            Object read(DataInput in, int id) throws IOException {
+                int typeId = in.readUnsignedByte();
+                int count = in.readInt();
+                if (count > 0 && typeId == 0) {
+                    throw new IOException("ListTag type is TAG_End but count is > 0");
+                }
+                if (count > 0 && !element.accepts(typeId)) {
+                    for (int index = 0; index < count; index++) {
+                        NBTStreamParser.skipPayload(in, typeId);
+                    }
+                    return SKIPPED;
+                }
+
+                // The count is not trusted for the initial capacity.
+                List<Object> elements = new ArrayList<>(Math.min(Math.max(count, 0), 1024));
+                for (int index = 0; index < count; index++) {
+                    Object item = readValue(element, in, typeId);
+                    if (item != SKIPPED) {
+                        elements.add(item);
+                    }
+                }
+                return elements;
+            }
+        };
+    }
+
+    private static Value mapValue(Value element) {
+        return new Value(CompoundTag.ID) {
+            @Override
+            void resolve() {
+                element.resolve();
+            }
+
+            @Override
+            void write(DataOutput out, Object value) throws IOException {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    if (entry.getValue() != null) {
+                        out.writeByte(element.idOf(entry.getValue()));
+                        out.writeUTF((String) entry.getKey());
+                        element.write(out, entry.getValue());
+                    }
+                }
+                out.writeByte(0);
+            }
+
+            @Override
+            Object read(DataInput in, int id) throws IOException {
+                Map<String, Object> entries = new LinkedHashMap<>();
+                try {
+                    int childId;
+                    while ((childId = in.readUnsignedByte()) != 0) {
+                        String key = in.readUTF();
+                        if (!element.accepts(childId)) {
+                            NBTStreamParser.skipPayload(in, childId);
+                            continue;
+                        }
+                        Object item = readValue(element, in, childId);
+                        if (item != SKIPPED) {
+                            entries.put(key, item);
+                        }
+                    }
+                } catch (EOFException e) {
+                    throw new IOException("Closing EndTag was not found!");
+                }
+                return entries;
+            }
+        };
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class<?> raw) {
+            return raw;
+        } else if (type instanceof ParameterizedType parameterized) {
+            return rawType(parameterized.getRawType());
+        } else if (type instanceof WildcardType wildcard) {
+            return rawType(wildcard.getUpperBounds()[0]);
+        }
+        return null;
+    }
+
+    private static Type typeArgument(Type type, int index, String property, Class<?> owner) {
+        if (type instanceof ParameterizedType parameterized) {
+            Type argument = parameterized.getActualTypeArguments()[index];
+            return argument instanceof WildcardType wildcard ? wildcard.getUpperBounds()[0] : argument;
+        }
+        throw unsupported(type, property, owner);
+    }
+
+    private static IllegalArgumentException unsupported(Type type, String property, Class<?> owner) {
+        return new IllegalArgumentException("Unsupported type " + type.getTypeName() + " of " + owner.getName() + "." + property);
+    }
+}
@@ -0,0 +1,67 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.CompoundTag;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The outcome of reading one file in a batch, either its root compound or the error that prevented reading it.
+ *
+ * @see NBTReader#readAll(java.util.Collection, NBTReadOptions, java.util.concurrent.Executor, java.util.concurrent.Executor)
+ */
+public final class NBTFileResult {
+    private final Path path;
+    private final CompoundTag tag;
+    private final IOException error;
+
+    NBTFileResult(Path path, CompoundTag tag, IOException error) {
+        this.path = path;
+        this.tag = tag;
+        this.error = error;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the root compound of the file.
+     *
+     * @return The root compound, or null if reading failed.
+     */
+    public CompoundTag getTag() {
+        return this.tag;
+    }
+
+    /**
+     * Gets the error that occurred while reading the file.
+     *
+     * @return The error, or null if reading succeeded.
+     */
+    public IOException getError() {
+        return this.error;
+    }
+
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+
+    /**
+     * Gets the root compound of the file, rethrowing the error if reading failed.
+     *
+     * @return The root compound.
+     * @throws IOException If reading the file failed.
+     */
+    public CompoundTag get() throws IOException {
+        if (this.error != null) {
+            throw this.error;
+        }
+        return this.tag;
+    }
+
+    @Override
+    public String toString() {
+        return "NBTFileResult{path=" + this.path + (this.error == null ? "" : ", error=" + this.error) + "}";
+    }
+}
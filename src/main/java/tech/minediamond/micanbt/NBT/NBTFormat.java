@@ -0,0 +1,33 @@
+package tech.minediamond.micanbt.NBT;
+
+/**
+ * The binary encodings NBT can be read from and written to.
+ */
+public enum NBTFormat {
+
+    /**
+     * Big-endian, used by Java Edition files and the Java protocol.
+     */
+    JAVA,
+
+    /**
+     * Little-endian, used by Bedrock Edition files such as {@code level.dat}.
+     */
+    BEDROCK,
+
+    /**
+     * Little-endian with ZigZag VarInt ints, ZigZag VarLong longs and VarInt string lengths,
+     * used by the Bedrock network protocol.
+     */
+    BEDROCK_NETWORK;
+
+    /**
+     * Gets the file format for the given byte order.
+     *
+     * @param littleEndian Whether the data is little-endian.
+     * @return {@link #BEDROCK} for little-endian data, {@link #JAVA} otherwise.
+     */
+    public static NBTFormat of(boolean littleEndian) {
+        return littleEndian ? BEDROCK : JAVA;
+    }
+}
@@ -0,0 +1,293 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a 64-bit structural hash of tags, from a tag tree or directly from binary NBT.
+ * <p>
+ * The hash covers the type and value of a tag, but not its own name, so a tag hashes the same wherever it is stored.
+ * The entries of a compound are combined independently of their order, the elements of a list in order.
+ * Strings are hashed by their characters, so the same tree hashes the same in every {@link NBTFormat}.
+ * Tags that are {@linkplain Tag#equals(Object) equal} apart from their names have the same hash.
+ * <p>
+ * This is not a cryptographic hash and must not be relied on against deliberately colliding data.
+ *
+ * @see Tag#contentHash()
+ */
+public final class NBTHash {
+    private static final long PRIME_1 = 0x9E3779B97F4A7C15L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final int CHUNK_SIZE = 8192;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private NBTHash() {
+    }
+
+    /**
+     * Computes the hash of a tag tree. Lazy tags are decoded.
+     *
+     * @param tag Tag to hash.
+     * @return The hash of the tag.
+     */
+    public static long hash(Tag tag) {
+        long hash = PRIME_1 * tag.getTagId();
+        switch (tag.getTagId()) {
+            case ByteTag.ID -> hash = update(hash, ((ByteTag) tag).getRawValue());
+            case ShortTag.ID -> hash = update(hash, ((ShortTag) tag).getRawValue());
+            case IntTag.ID -> hash = update(hash, ((IntTag) tag).getRawValue());
+            case LongTag.ID -> hash = update(hash, ((LongTag) tag).getRawValue());
+            case FloatTag.ID -> hash = update(hash, Float.floatToIntBits(((FloatTag) tag).getRawValue()));
+            case DoubleTag.ID -> hash = update(hash, Double.doubleToLongBits(((DoubleTag) tag).getRawValue()));
+            case StringTag.ID -> hash = string(hash, ((StringTag) tag).getRawValue());
+            case ByteArrayTag.ID -> {
+                byte[] value = ((ByteArrayTag) tag).getRawValue();
+                hash = bytes(update(hash, value.length), value, value.length);
+            }
+            case IntArrayTag.ID -> {
+                int[] value = ((IntArrayTag) tag).getRawValue();
+                hash = ints(update(hash, value.length), value, value.length);
+            }
+            case LongArrayTag.ID -> {
+                long[] value = ((LongArrayTag) tag).getRawValue();
+                hash = longs(update(hash, value.length), value, value.length);
+            }
+            case ListTag.ID -> {
+                ListTag<?> list = (ListTag<?>) tag;
+                int typeId = list.getElementTypeId();
+                List<? extends Tag> elements = list.getReadOnlyValue();
+                int size = elements.size();
+                hash = update(update(hash, typeId), size);
+                // Numeric elements are read without creating tags for lists that store them as primitives.
+                for (int index = 0; index < size; index++) {
+                    hash = update(hash, switch (typeId) {
+                        case IntTag.ID -> finish(update(PRIME_1 * IntTag.ID, list.getInt(index)));
+                        case FloatTag.ID -> finish(update(PRIME_1 * FloatTag.ID, Float.floatToIntBits(list.getFloat(index))));
+                        case DoubleTag.ID -> finish(update(PRIME_1 * DoubleTag.ID, Double.doubleToLongBits(list.getDouble(index))));
+                        default -> hash(elements.get(index));
+                    });
+                }
+            }
+            case CompoundTag.ID -> {
+                Map<String, Tag> entries = ((CompoundTag) tag).getReadOnlyValue();
+                long sum = 0;
+                for (Map.Entry<String, Tag> entry : entries.entrySet()) {
+                    sum += entry(entry.getKey(), hash(entry.getValue()));
+                }
+                hash = update(update(hash, entries.size()), sum);
+            }
+            default -> hash = update(hash, tag.hashCode());
+        }
+        return finish(hash);
+    }
+
+    /**
+     * Computes the hash of a named tag directly from a stream in the given format, see {@link #hash(DataInput)}.
+     * Exactly the bytes of the tag are consumed from the stream.
+     *
+     * @param in     Stream to read from.
+     * @param format Format of the data.
+     * @return The hash of the tag.
+     * @throws IOException If an I/O error occurs, the data starts with an end tag or is malformed.
+     */
+    public static long hash(InputStream in, NBTFormat format) throws IOException {
+        return hash(NBTReader.dataInput(in, format));
+    }
+
+    /**
+     * Computes the hash of a named tag directly from a stream, without creating any tags.
+     * The result is the same as {@link #hash(Tag)} of the tag that {@link NBTReader#readTag(DataInput)} would return.
+     *
+     * @param in Stream to read from.
+     * @return The hash of the tag.
+     * @throws IOException If an I/O error occurs, the data starts with an end tag or is malformed.
+     */
+    public static long hash(DataInput in) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id == 0) {
+            throw new IOException("Cannot hash an end tag.");
+        }
+        NBTStreamParser.skipString(in);
+        return hashPayload(in, id);
+    }
+
+    /**
+     * Computes the hash of the payload of a tag of the given type directly from a stream.
+     *
+     * @param in Stream to read from, positioned after the type id and name of the tag.
+     * @param id Type id of the tag.
+     * @return The hash of the tag.
+     * @throws IOException If an I/O error occurs, the type is unknown or the data is malformed.
+     */
+    public static long hashPayload(DataInput in, int id) throws IOException {
+        long hash = PRIME_1 * id;
+        switch (id) {
+            case ByteTag.ID -> hash = update(hash, in.readByte());
+            case ShortTag.ID -> hash = update(hash, in.readShort());
+            case IntTag.ID -> hash = update(hash, in.readInt());
+            case LongTag.ID -> hash = update(hash, in.readLong());
+            case FloatTag.ID -> hash = update(hash, Float.floatToIntBits(in.readFloat()));
+            case DoubleTag.ID -> hash = update(hash, Double.doubleToLongBits(in.readDouble()));
+            case StringTag.ID -> hash = string(hash, in.readUTF());
+            case ByteArrayTag.ID -> {
+                int length = arrayLength(in);
+                hash = update(hash, length);
+                byte[] chunk = new byte[Math.min(length, CHUNK_SIZE)];
+                for (int remaining = length; remaining > 0; ) {
+                    // Chunks are a multiple of 8 bytes, so they split the data the same way as a single array.
+                    int count = Math.min(remaining, chunk.length);
+                    in.readFully(chunk, 0, count);
+                    hash = bytes(hash, chunk, count);
+                    remaining -= count;
+                }
+            }
+            case IntArrayTag.ID -> {
+                int length = arrayLength(in);
+                hash = update(hash, length);
+                int[] chunk = new int[Math.min(length, CHUNK_SIZE / Integer.BYTES)];
+                for (int remaining = length; remaining > 0; ) {
+                    // Chunks have an even length, so they pair up the elements the same way as a single array.
+                    int count = Math.min(remaining, chunk.length);
+                    NBTReader.readInts(in, chunk, 0, count);
+                    hash = ints(hash, chunk, count);
+                    remaining -= count;
+                }
+            }
+            case LongArrayTag.ID -> {
+                int length = arrayLength(in);
+                hash = update(hash, length);
+                long[] chunk = new long[Math.min(length, CHUNK_SIZE / Long.BYTES)];
+                for (int remaining = length; remaining > 0; ) {
+                    int count = Math.min(remaining, chunk.length);
+                    NBTReader.readLongs(in, chunk, 0, count);
+                    hash = longs(hash, chunk, count);
+                    remaining -= count;
+                }
+            }
+            case ListTag.ID -> {
+                int typeId = in.readUnsignedByte();
+                int count = in.readInt();
+                if (count > 0 && typeId == 0) {
+                    throw new IOException("ListTag type is TAG_End but count is > 0");
+                }
+                int size = Math.max(count, 0);
+                hash = update(update(hash, typeId), size);
+                for (int index = 0; index < size; index++) {
+                    hash = update(hash, hashPayload(in, typeId));
+                }
+            }
+            case CompoundTag.ID -> {
+                long sum = 0;
+                int size = 0;
+                try {
+                    int childId;
+                    while ((childId = in.readUnsignedByte()) != 0) {
+                        String name = in.readUTF();
+                        sum += entry(name, hashPayload(in, childId));
+                        size++;
+                    }
+                } catch (EOFException e) {
+                    throw new IOException("Closing EndTag was not found!");
+                }
+                hash = update(update(hash, size), sum);
+            }
+            default -> throw new IOException("Failed to create tag.", new TagCreateException("Could not find tag with ID \"" + id + "\"."));
+        }
+        return finish(hash);
+    }
+
+    private static int arrayLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Hashes a compound entry. Entries are summed up, so they have to be mixed completely first.
+     */
+    private static long entry(String name, long value) {
+        return finish(update(string(PRIME_2, name), value));
+    }
+
+    private static long string(long hash, String value) {
+        int length = value.length();
+        hash = update(hash, length);
+        int index = 0;
+        for (; index + 3 < length; index += 4) {
+            hash = update(hash, (long) value.charAt(index) << 48 | (long) value.charAt(index + 1) << 32
+                    | (long) value.charAt(index + 2) << 16 | value.charAt(index + 3));
+        }
+        long tail = 0;
+        for (; index < length; index++) {
+            tail = tail << 16 | value.charAt(index);
+        }
+        return update(hash, tail);
+    }
+
+    /**
+     * Hashes bytes eight at a time. Only the last call for an array may pass a count that is not a multiple of 8.
+     */
+    private static long bytes(long hash, byte[] value, int count) {
+        int index = 0;
+        for (; index + 7 < count; index += Long.BYTES) {
+            hash = update(hash, (long) LONG_VIEW.get(value, index));
+        }
+        if (index < count) {
+            long tail = 0;
+            for (; index < count; index++) {
+                tail = tail << 8 | (value[index] & 0xFF);
+            }
+            hash = update(hash, tail);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes ints two at a time. Only the last call for an array may pass an odd count.
+     */
+    private static long ints(long hash, int[] value, int count) {
+        int index = 0;
+        for (; index + 1 < count; index += 2) {
+            hash = update(hash, pair(value[index], value[index + 1]));
+        }
+        if (index < count) {
+            hash = update(hash, value[index]);
+        }
+        return hash;
+    }
+
+    private static long longs(long hash, long[] value, int count) {
+        for (int index = 0; index < count; index++) {
+            hash = update(hash, value[index]);
+        }
+        return hash;
+    }
+
+    private static long pair(int first, int second) {
+        return (long) first << 32 | (second & 0xFFFFFFFFL);
+    }
+
+    private static long update(long hash, long value) {
+        return Long.rotateLeft(hash ^ value * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,16 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * An exception thrown when binary NBT exceeds the {@link NBTReadLimits} it is read with.
+ */
+public class NBTLimitException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 3871530672018349415L;
+
+    public NBTLimitException(String message) {
+        super(message);
+    }
+}
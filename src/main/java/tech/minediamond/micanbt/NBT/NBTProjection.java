@@ -0,0 +1,149 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.path.NBTPath;
+import tech.minediamond.micanbt.tag.CompoundTag;
+import tech.minediamond.micanbt.tag.ListTag;
+import tech.minediamond.micanbt.tag.Tag;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads only the parts of binary NBT that are selected by a set of {@link NBTPath}s.
+ * <p>
+ * The paths are merged into a tree. Every tag on the way to a selected tag is created with only the selected
+ * children, the selected tags themselves are read completely, and everything else is skipped using the length
+ * prefixes. Lists keep their indices: elements before the highest selected index that are not selected
+ * are replaced by empty tags of the element type, elements after it are dropped.
+ */
+final class NBTProjection {
+    private final Map<String, NBTProjection> children = new HashMap<>();
+    private boolean selected;
+
+    private NBTProjection() {
+    }
+
+    static NBTProjection of(Collection<NBTPath> paths) {
+        NBTProjection root = new NBTProjection();
+        for (NBTPath path : paths) {
+            NBTProjection node = root;
+            for (String token : path.getTokens()) {
+                node = node.children.computeIfAbsent(token, key -> new NBTProjection());
+            }
+            node.selected = true;
+        }
+        return root;
+    }
+
+    /**
+     * Reads the selected parts of a tag.
+     *
+     * @param named Whether the tag has a name, or only a type id before its payload.
+     */
+    Tag readTag(DataInput in, boolean named) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id == 0) {
+            return null;
+        }
+
+        String name = named ? in.readUTF() : "";
+        Tag tag = this.readPayload(in, id, name);
+        return tag != null ? tag : NBTReader.createTag(id, name);
+    }
+
+    /**
+     * Reads the selected parts of a payload.
+     *
+     * @return The read tag, or null if the tag has no children to select from and was skipped.
+     */
+    private Tag readPayload(DataInput in, int id, String name) throws IOException {
+        if (this.selected) {
+            return NBTReader.readPayload(in, id, name);
+        }
+
+        if (id == CompoundTag.ID) {
+            CompoundTag compound = new CompoundTag(name);
+            try {
+                int childId;
+                while ((childId = in.readUnsignedByte()) != 0) {
+                    String childName = in.readUTF();
+                    NBTProjection child = this.children.get(childName);
+                    if (child == null) {
+                        NBTStreamParser.skipPayload(in, childId);
+                        continue;
+                    }
+
+                    Tag tag = child.readPayload(in, childId, childName);
+                    if (tag != null) {
+                        compound.putOwned(tag);
+                    }
+                }
+            } catch (EOFException e) {
+                throw new IOException("Closing EndTag was not found!");
+            }
+            return compound;
+        }
+
+        if (id == ListTag.ID) {
+            int typeId = in.readUnsignedByte();
+            int count = in.readInt();
+            if (count > 0 && typeId == 0) {
+                throw new IOException("ListTag type is TAG_End but count is > 0");
+            }
+
+            NBTProjection[] elements = this.listElements(count);
+            ListTag<Tag> list = new ListTag<>(name, typeId);
+            for (int index = 0; index < count; index++) {
+                NBTProjection element = index < elements.length ? elements[index] : null;
+                Tag tag = null;
+                if (element != null) {
+                    tag = element.readPayload(in, typeId, "");
+                } else {
+                    NBTStreamParser.skipPayload(in, typeId);
+                }
+                if (index < elements.length) {
+                    list.addOwned(tag != null ? tag : NBTReader.createTag(typeId, ""));
+                }
+            }
+            return list;
+        }
+
+        NBTStreamParser.skipPayload(in, id);
+        return null;
+    }
+
+    /**
+     * Gets the selections for the elements of a list, up to the highest selected index.
+     */
+    private NBTProjection[] listElements(int count) {
+        int length = 0;
+        for (String token : this.children.keySet()) {
+            int index = parseIndex(token);
+            if (index < count) {
+                length = Math.max(length, index + 1);
+            }
+        }
+
+        NBTProjection[] elements = new NBTProjection[length];
+        for (Map.Entry<String, NBTProjection> entry : this.children.entrySet()) {
+            int index = parseIndex(entry.getKey());
+            if (index < length) {
+                elements[index] = entry.getValue();
+            }
+        }
+        return elements;
+    }
+
+    private static int parseIndex(String token) {
+        try {
+            int index = Integer.parseInt(token);
+            return index >= 0 ? index : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
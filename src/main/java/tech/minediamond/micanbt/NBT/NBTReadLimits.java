@@ -0,0 +1,114 @@
+package tech.minediamond.micanbt.NBT;
+
+/**
+ * Budgets that bound the work and memory of decoding untrusted binary NBT.
+ * <p>
+ * The depth counts nested compounds and lists, the root included. The byte budget counts the encoded bytes consumed,
+ * which also bounds the number of tags created. Array lengths are checked against both the array limit and the
+ * remaining byte budget before anything is allocated. Exceeding a budget throws an {@link NBTLimitException}.
+ * <p>
+ * Limits are enforced by the readers of this library that take {@link NBTReadOptions}; a plain {@link java.io.DataInput} handed to
+ * {@link NBTReader#readTag(java.io.DataInput)} is read without limits.
+ */
+public final class NBTReadLimits {
+    public static final NBTReadLimits UNLIMITED = new NBTReadLimits(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+    /**
+     * The limits Minecraft applies to NBT received over the network: 512 levels deep and 2 MiB.
+     */
+    public static final NBTReadLimits DEFAULT = new NBTReadLimits(512, 2 * 1024 * 1024, 2 * 1024 * 1024);
+
+    private final int maxDepth;
+    private final long maxBytes;
+    private final int maxArrayLength;
+
+    /**
+     * Creates limits.
+     *
+     * @param maxDepth       Maximum nesting of compounds and lists.
+     * @param maxBytes       Maximum number of encoded bytes to consume.
+     * @param maxArrayLength Maximum number of elements of a single byte, int or long array.
+     */
+    public NBTReadLimits(int maxDepth, long maxBytes, int maxArrayLength) {
+        if (maxDepth <= 0 || maxBytes <= 0 || maxArrayLength < 0) {
+            throw new IllegalArgumentException("Limits must be positive.");
+        }
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+        this.maxArrayLength = maxArrayLength;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    public int getMaxArrayLength() {
+        return this.maxArrayLength;
+    }
+
+    public NBTReadLimits withMaxDepth(int maxDepth) {
+        return new NBTReadLimits(maxDepth, this.maxBytes, this.maxArrayLength);
+    }
+
+    public NBTReadLimits withMaxBytes(long maxBytes) {
+        return new NBTReadLimits(this.maxDepth, maxBytes, this.maxArrayLength);
+    }
+
+    public NBTReadLimits withMaxArrayLength(int maxArrayLength) {
+        return new NBTReadLimits(this.maxDepth, this.maxBytes, maxArrayLength);
+    }
+
+    /**
+     * Tracks the depth and consumed bytes of one read against these limits.
+     */
+    static final class Budget {
+        private final NBTReadLimits limits;
+        private int depth;
+
+        Budget(NBTReadLimits limits) {
+            this.limits = limits;
+        }
+
+        /**
+         * Called before the payload of every tag.
+         *
+         * @param container Whether the tag is a compound or list, which adds a level.
+         * @param consumed  Bytes consumed so far.
+         */
+        void enter(boolean container, long consumed) throws NBTLimitException {
+            this.checkBytes(consumed);
+            if (container && ++this.depth > this.limits.maxDepth) {
+                throw new NBTLimitException("NBT is nested deeper than " + this.limits.maxDepth + " levels.");
+            }
+        }
+
+        void exit(boolean container) {
+            if (container) {
+                this.depth--;
+            }
+        }
+
+        void checkBytes(long consumed) throws NBTLimitException {
+            if (consumed > this.limits.maxBytes) {
+                throw new NBTLimitException("NBT is larger than " + this.limits.maxBytes + " bytes.");
+            }
+        }
+
+        /**
+         * Checks an array before it is allocated.
+         *
+         * @param length      Number of elements.
+         * @param elementSize Least number of encoded bytes per element.
+         * @param consumed    Bytes consumed so far, the length included.
+         */
+        void checkArray(int length, int elementSize, long consumed) throws NBTLimitException {
+            if (length > this.limits.maxArrayLength) {
+                throw new NBTLimitException("Array length " + length + " exceeds the limit of " + this.limits.maxArrayLength + ".");
+            }
+            this.checkBytes(consumed + (long) length * elementSize);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.path.NBTPath;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * How binary NBT is read: its format, an optional {@link NBTStringPool}, the {@link NBTReadLimits} to enforce and the
+ * {@link NBTPath}s to select. The options can be combined freely and are taken by one read method per source,
+ * such as {@link NBTReader#read(java.io.InputStream, NBTReadOptions)}.
+ * <p>
+ * Options are immutable, so they can be kept in a constant and shared between threads as long as the pool can be.
+ */
+public final class NBTReadOptions {
+    public static final NBTReadOptions DEFAULT = new NBTReadOptions(NBTFormat.JAVA, null, NBTReadLimits.UNLIMITED, null);
+
+    private final NBTFormat format;
+    private final NBTStringPool pool;
+    private final NBTReadLimits limits;
+    private final List<NBTPath> paths;
+    private final NBTProjection projection;
+
+    private NBTReadOptions(NBTFormat format, NBTStringPool pool, NBTReadLimits limits, List<NBTPath> paths) {
+        this.format = format;
+        this.pool = pool;
+        this.limits = limits;
+        this.paths = paths;
+        this.projection = paths == null ? null : NBTProjection.of(paths);
+    }
+
+    /**
+     * Gets the default options for a format: no pool, no limits and no path selection.
+     *
+     * @param format Format of the data.
+     * @return The options.
+     */
+    public static NBTReadOptions of(NBTFormat format) {
+        return DEFAULT.withFormat(format);
+    }
+
+    public NBTFormat getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Gets the pool to intern tag names and string values with.
+     *
+     * @return The pool, or null if strings are not pooled.
+     */
+    public NBTStringPool getPool() {
+        return this.pool;
+    }
+
+    public NBTReadLimits getLimits() {
+        return this.limits;
+    }
+
+    /**
+     * Gets the paths to read, relative to the root tag.
+     *
+     * @return The paths, or null if the whole tag is read.
+     */
+    public List<NBTPath> getPaths() {
+        return this.paths;
+    }
+
+    public NBTReadOptions withFormat(NBTFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format must not be null.");
+        }
+        return new NBTReadOptions(format, this.pool, this.limits, this.paths);
+    }
+
+    /**
+     * Sets the pool to intern tag names and string values with.
+     *
+     * @param pool Pool to use, or null to not pool strings.
+     * @return The new options.
+     */
+    public NBTReadOptions withPool(NBTStringPool pool) {
+        return new NBTReadOptions(this.format, pool, this.limits, this.paths);
+    }
+
+    public NBTReadOptions withLimits(NBTReadLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Limits must not be null, use NBTReadLimits.UNLIMITED instead.");
+        }
+        return new NBTReadOptions(this.format, this.pool, limits, this.paths);
+    }
+
+    /**
+     * Selects the paths to read, see {@link NBTReader#readTag(java.io.DataInput, Collection)}.
+     *
+     * @param paths Paths to read, relative to the root tag, or null to read the whole tag.
+     * @return The new options.
+     */
+    public NBTReadOptions withPaths(Collection<NBTPath> paths) {
+        return new NBTReadOptions(this.format, this.pool, this.limits, paths == null ? null : List.copyOf(paths));
+    }
+
+    /**
+     * Gets the projection of the paths, which is built once per options.
+     */
+    NBTProjection projection() {
+        return this.projection;
+    }
+}
@@ -1,50 +1,85 @@
 package tech.minediamond.micanbt.NBT;
 
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.compression.CompressionCodec;
+import tech.minediamond.micanbt.path.NBTPath;
 import tech.minediamond.micanbt.tag.CompoundTag;
+import tech.minediamond.micanbt.tag.ListTag;
 import tech.minediamond.micanbt.tag.Tag;
 
 import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.zip.GZIPInputStream;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 public class NBTReader {
+    private static final int ARRAY_CHUNK_SIZE = 8192;
+    private static final VarHandle INT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 
     public static CompoundTag read(Path path) throws IOException {
         return read(path, false);
     }
 
     public static CompoundTag read(Path path, boolean littleEndian) throws IOException {
-        try (InputStream fis = Files.newInputStream(path);
-             BufferedInputStream bis = new BufferedInputStream(fis)) {
-            bis.mark(3);
-            byte[] header = new byte[3];
-            if (bis.read(header) < 3) {
-                throw new IOException("File is too small");
-            }
-            bis.reset();
+        return read(path, NBTReadOptions.of(NBTFormat.of(littleEndian)));
+    }
 
-            try (InputStream in = (header[0] == 0x1f && header[1] == (byte) 0x8b && header[2] == 0x08)
-                    ? new GZIPInputStream(bis) : bis) {
-                return read(in, littleEndian);
-            }
+    /**
+     * Reads a file with the given options. Compression is detected automatically.
+     *
+     * @param path    File to read.
+     * @param options Format, string pool, limits and paths to read with.
+     * @return The root compound, with only the selected tags and their parents if paths are given.
+     * @throws IOException If the file cannot be read, is malformed or exceeds a limit.
+     * @see NBTReadOptions
+     */
+    public static CompoundTag read(Path path, NBTReadOptions options) throws IOException {
+        try (InputStream fis = Files.newInputStream(path);
+             BufferedInputStream bis = new BufferedInputStream(fis);
+             InputStream in = decompress(Compression.detect(bis), bis)) {
+            return readOwned(in, options);
         }
     }
 
     public static CompoundTag read(Path path, boolean compressed, boolean littleEndian) throws IOException {
+        return read(path, compressed ? Compression.GZIP : Compression.NONE, littleEndian);
+    }
+
+    public static CompoundTag read(Path path, CompressionCodec codec, boolean littleEndian) throws IOException {
         try (InputStream fis = Files.newInputStream(path);
              BufferedInputStream bis = new BufferedInputStream(fis);
-             InputStream in = compressed ? new GZIPInputStream(bis) : bis) {
-            return read(in, littleEndian);
+             InputStream in = decompress(codec, bis)) {
+            return readOwned(in, NBTReadOptions.of(NBTFormat.of(littleEndian)));
         }
     }
 
-    public static Tag read(InputStream in) throws IOException {
-        return readTag(in, false);
+    private static InputStream decompress(CompressionCodec codec, BufferedInputStream in) throws IOException {
+        // Decompressors are slow to read single bytes from, so the decompressed data is buffered as well.
+        return codec == Compression.NONE ? in : new BufferedInputStream(codec.decompress(in));
     }
 
-    public static CompoundTag read(InputStream in, boolean littleEndian) throws IOException {
-        Tag tag = readTag(in, littleEndian);
+    /**
+     * Reads the root compound of a stream that is not used afterward, which allows reading ahead.
+     */
+    private static CompoundTag readOwned(InputStream in, NBTReadOptions options) throws IOException {
+        return asCompound(decode(dataInput(in, options, true), options, true));
+    }
+
+    private static CompoundTag asCompound(Tag tag) throws IOException {
         if (tag instanceof CompoundTag compoundTag) {
             return compoundTag;
         }
@@ -52,8 +87,441 @@ public class NBTReader {
                 (tag == null ? "null" : tag.getClass().getSimpleName()));
     }
 
+    /**
+     * Reads only the given paths of a named tag.
+     * <p>
+     * Selected tags are read completely, their parents are created with only the selected children, and everything
+     * else is skipped using the length prefixes of strings, arrays and lists. List indices are kept: unselected
+     * elements before the highest selected index are replaced by empty tags of the element type,
+     * elements after it are dropped.
+     *
+     * @param in    Stream to read from.
+     * @param paths Paths to read, relative to the root tag.
+     * @return The sparse root tag, or null if the data starts with an end tag.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Tag readTag(DataInput in, Collection<NBTPath> paths) throws IOException {
+        return NBTProjection.of(paths).readTag(in, true);
+    }
+
+    public static void accept(Path path, NBTVisitor visitor) throws IOException {
+        accept(path, false, visitor);
+    }
+
+    /**
+     * Parses a file and reports its contents to a visitor instead of building tags,
+     * so that files of any size can be scanned in constant memory. Compression is detected automatically.
+     *
+     * @param path         Path of the file.
+     * @param littleEndian Whether the data is little-endian (Bedrock Edition).
+     * @param visitor      Visitor to report the contents to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void accept(Path path, boolean littleEndian, NBTVisitor visitor) throws IOException {
+        try (InputStream fis = Files.newInputStream(path);
+             BufferedInputStream bis = new BufferedInputStream(fis);
+             InputStream in = decompress(Compression.detect(bis), bis)) {
+            accept(dataInput(in, NBTReadOptions.of(NBTFormat.of(littleEndian)), true), visitor);
+        }
+    }
+
+    public static void accept(InputStream in, NBTFormat format, NBTVisitor visitor) throws IOException {
+        accept(dataInput(in, format), visitor);
+    }
+
+    /**
+     * Parses a named tag and reports its contents to a visitor instead of building tags.
+     *
+     * @param in      Stream to read from.
+     * @param visitor Visitor to report the contents to.
+     * @throws IOException If an I/O error occurs.
+     * @see NBTVisitor
+     */
+    public static void accept(DataInput in, NBTVisitor visitor) throws IOException {
+        NBTStreamParser.accept(in, visitor);
+    }
+
+    public static Tag read(InputStream in) throws IOException {
+        return readTag(in, false);
+    }
+
+    public static CompoundTag read(InputStream in, boolean littleEndian) throws IOException {
+        return asCompound(readTag(in, littleEndian));
+    }
+
+    public static CompoundTag read(InputStream in, NBTFormat format) throws IOException {
+        return asCompound(readTag(in, format));
+    }
+
+    /**
+     * Reads the root compound from a stream with the given options.
+     * Exactly the bytes of the tag are consumed from the stream.
+     *
+     * @param in      Stream to read from.
+     * @param options Format, string pool, limits and paths to read with.
+     * @return The root compound, with only the selected tags and their parents if paths are given.
+     * @throws IOException If an I/O error occurs, the data is malformed or a limit is exceeded.
+     * @see NBTReadOptions
+     */
+    public static CompoundTag read(InputStream in, NBTReadOptions options) throws IOException {
+        return asCompound(readTag(in, options));
+    }
+
+    public static Tag readTag(InputStream in, NBTReadOptions options) throws IOException {
+        return decode(dataInput(in, options, false), options, true);
+    }
+
+    public static Tag readUnnamedTag(InputStream in, NBTReadOptions options) throws IOException {
+        return decode(dataInput(in, options, false), options, false);
+    }
+
     public static Tag readTag(InputStream in, boolean littleEndian) throws IOException {
-        return readTag(littleEndian ? new LittleEndianDataInputStream(in) : new DataInputStream(in));
+        return readTag(in, NBTFormat.of(littleEndian));
+    }
+
+    public static Tag readTag(InputStream in, NBTFormat format) throws IOException {
+        return readTag(dataInput(in, format));
+    }
+
+    /**
+     * Reads a tag whose root has no name, as sent by the Java protocol since 1.20.2.
+     *
+     * @param in     Stream to read from.
+     * @param format Format of the data.
+     * @return The read tag with an empty name, or null if the data starts with an end tag.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Tag readUnnamedTag(InputStream in, NBTFormat format) throws IOException {
+        return readUnnamedTag(dataInput(in, format));
+    }
+
+    static DataInput dataInput(InputStream in, NBTFormat format) {
+        return dataInput(in, NBTReadOptions.of(format), false);
+    }
+
+    /**
+     * Creates the stream for a format, with the pool and limits of the options.
+     *
+     * @param owned Whether the stream is not used afterward, which allows reading ahead.
+     */
+    static DataInput dataInput(InputStream in, NBTReadOptions options, boolean owned) {
+        BufferedDataInputStream stream = switch (options.getFormat()) {
+            case JAVA -> new BufferedDataInputStream(in, ByteOrder.BIG_ENDIAN, owned, options.getPool());
+            case BEDROCK -> new BufferedDataInputStream(in, ByteOrder.LITTLE_ENDIAN, owned, options.getPool());
+            case BEDROCK_NETWORK -> new NetworkDataInputStream(in, owned, options.getPool());
+        };
+        stream.setLimits(options.getLimits());
+        return stream;
+    }
+
+    /**
+     * Reads a tag, or only its selected paths if the options have any.
+     */
+    private static Tag decode(DataInput in, NBTReadOptions options, boolean named) throws IOException {
+        NBTProjection projection = options.projection();
+        if (projection != null) {
+            return projection.readTag(in, named);
+        }
+        return named ? readTag(in) : readUnnamedTag(in);
+    }
+
+    public static CompoundTag read(ByteBuffer buffer, NBTFormat format) throws IOException {
+        return asCompound(readTag(buffer, format));
+    }
+
+    /**
+     * Reads the root compound directly from a buffer with the given options.
+     *
+     * @param buffer  Buffer to read from, its position is advanced past the tag.
+     * @param options Format, string pool, limits and paths to read with.
+     * @return The root compound, with only the selected tags and their parents if paths are given.
+     * @throws IOException If the data is malformed, ends prematurely or exceeds a limit.
+     * @see NBTReadOptions
+     */
+    public static CompoundTag read(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return asCompound(readTag(buffer, options));
+    }
+
+    public static Tag readTag(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return decode(buffer, options, true);
+    }
+
+    public static Tag readUnnamedTag(ByteBuffer buffer, NBTReadOptions options) throws IOException {
+        return decode(buffer, options, false);
+    }
+
+    private static Tag decode(ByteBuffer buffer, NBTReadOptions options, boolean named) throws IOException {
+        if (options.projection() != null) {
+            // Paths are selected while streaming, which consumes exactly the bytes of the tag from the buffer.
+            return decode(dataInput(new ByteBufferInputStream(buffer), options, false), options, named);
+        }
+
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, options);
+        Tag tag = decoder.readTag(named);
+        buffer.position(decoder.position());
+        return tag;
+    }
+
+    public static Tag readTag(ByteBuffer buffer) throws IOException {
+        return readTag(buffer, NBTFormat.JAVA);
+    }
+
+    /**
+     * Reads a tag directly from a buffer, starting at its position.
+     * The buffer's own byte order is ignored, and its position is advanced past the tag.
+     *
+     * @param buffer Buffer to read from. May be a heap, direct or memory-mapped buffer.
+     * @param format Format of the data.
+     * @return The read tag, or null if the data starts with an end tag.
+     * @throws IOException If the data is malformed or ends prematurely.
+     */
+    public static Tag readTag(ByteBuffer buffer, NBTFormat format) throws IOException {
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, format);
+        Tag tag = decoder.readTag(true);
+        buffer.position(decoder.position());
+        return tag;
+    }
+
+    /**
+     * Reads a tag whose root has no name directly from a buffer, starting at its position.
+     *
+     * @param buffer Buffer to read from.
+     * @param format Format of the data.
+     * @return The read tag with an empty name, or null if the data starts with an end tag.
+     * @throws IOException If the data is malformed or ends prematurely.
+     * @see #readTag(ByteBuffer, NBTFormat)
+     */
+    public static Tag readUnnamedTag(ByteBuffer buffer, NBTFormat format) throws IOException {
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, format);
+        Tag tag = decoder.readTag(false);
+        buffer.position(decoder.position());
+        return tag;
+    }
+
+    /**
+     * Reads the root compound from the complete contents of an NBT file, detecting its compression.
+     *
+     * @param data         Contents of the file.
+     * @param littleEndian Whether the data is little-endian (Bedrock Edition).
+     * @return The root compound.
+     * @throws IOException If the data is malformed or ends prematurely.
+     */
+    public static CompoundTag read(byte[] data, boolean littleEndian) throws IOException {
+        return read(data, NBTReadOptions.of(NBTFormat.of(littleEndian)));
+    }
+
+    /**
+     * Reads the root compound from the complete contents of an NBT file with the given options.
+     *
+     * @param data    Contents of the file.
+     * @param options Format, string pool, limits and paths to read with.
+     * @return The root compound, with only the selected tags and their parents if paths are given.
+     * @throws IOException If the data is malformed, ends prematurely or exceeds a limit.
+     * @see #read(byte[], boolean)
+     */
+    public static CompoundTag read(byte[] data, NBTReadOptions options) throws IOException {
+        Compression compression = Compression.detect(data, data.length);
+        if (compression == Compression.NONE) {
+            return read(ByteBuffer.wrap(data), options);
+        }
+        try (InputStream in = new BufferedInputStream(compression.decompress(new ByteArrayInputStream(data)))) {
+            return readOwned(in, options);
+        }
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths) {
+        return readAll(paths, false, BatchReader.defaultIoExecutor(), BatchReader.defaultDecodeExecutor());
+    }
+
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, Executor decodeExecutor) {
+        return readAll(paths, false, BatchReader.defaultIoExecutor(), decodeExecutor);
+    }
+
+    /**
+     * Reads many files concurrently and returns the results in the order they finish, see
+     * {@link #readAll(Collection, NBTReadOptions, Executor, Executor)}.
+     *
+     * @param paths          Files to read.
+     * @param littleEndian   Whether the files are little-endian (Bedrock Edition).
+     * @param ioExecutor     Executor for the blocking file reads.
+     * @param decodeExecutor Executor for decompressing and decoding.
+     * @return One result per path, in completion order.
+     */
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, boolean littleEndian,
+                                                Executor ioExecutor, Executor decodeExecutor) {
+        return readAll(paths, NBTReadOptions.of(NBTFormat.of(littleEndian)), ioExecutor, decodeExecutor);
+    }
+
+    /**
+     * Reads many files concurrently with the given options and returns the results in the order they finish.
+     * <p>
+     * Reading a file's bytes runs on the I/O executor, decompressing and decoding them on the decode executor.
+     * A bounded number of files is in flight at a time, and the next file is only started once a result has been
+     * taken from the stream, so a slow consumer does not pile up decoded trees. Failing files produce a result with
+     * an error instead of ending the stream. The stream blocks while waiting for results.
+     *
+     * @param paths          Files to read.
+     * @param options        Format, string pool, limits and paths to read every file with. A string pool is shared by
+     *                       the concurrent reads.
+     * @param ioExecutor     Executor for the blocking file reads. The default uses virtual threads where available.
+     * @param decodeExecutor Executor for decompressing and decoding, usually a pool bounded to the CPU count.
+     * @return One result per path, in completion order. Files exceeding a limit produce a result with the error.
+     * @see NBTReadOptions
+     */
+    public static Stream<NBTFileResult> readAll(Collection<Path> paths, NBTReadOptions options,
+                                                Executor ioExecutor, Executor decodeExecutor) {
+        return new BatchReader(paths, options, ioExecutor, decodeExecutor).stream();
+    }
+
+    public static CompletableFuture<CompoundTag> readAsync(Path path) {
+        return readAsync(path, false, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a file without blocking the calling thread, see {@link #readAsync(Path, NBTReadOptions, Executor)}.
+     *
+     * @param path         File to read.
+     * @param littleEndian Whether the data is little-endian (Bedrock Edition).
+     * @param executor     Executor for decompressing and decoding.
+     * @return A future of the root compound, failing with the {@link IOException} if the file cannot be read.
+     */
+    public static CompletableFuture<CompoundTag> readAsync(Path path, boolean littleEndian, Executor executor) {
+        return readAsync(path, NBTReadOptions.of(NBTFormat.of(littleEndian)), executor);
+    }
+
+    /**
+     * Reads a file with the given options without blocking the calling thread.
+     * The file is read through an {@link java.nio.channels.AsynchronousFileChannel}, then decompressed and decoded on
+     * the executor.
+     *
+     * @param path     File to read.
+     * @param options  Format, string pool, limits and paths to read with.
+     * @param executor Executor for decompressing and decoding.
+     * @return A future of the root compound, failing with the {@link IOException} if the file cannot be read, is
+     * malformed or exceeds a limit.
+     * @see NBTReadOptions
+     */
+    public static CompletableFuture<CompoundTag> readAsync(Path path, NBTReadOptions options, Executor executor) {
+        return AsyncFileIO.read(path, options, executor);
+    }
+
+    public static CompoundTag readLazy(Path path) throws IOException {
+        return readLazy(path, false);
+    }
+
+    /**
+     * Reads the root compound of a file lazily, see {@link #readLazy(ByteBuffer, NBTFormat)}.
+     * Uncompressed files are memory-mapped, compressed files are decompressed into memory up front.
+     *
+     * @param path         File to read.
+     * @param littleEndian Whether the data is little-endian (Bedrock Edition).
+     * @return The lazy root compound.
+     * @throws IOException If the file cannot be read or the root tag is malformed.
+     */
+    public static CompoundTag readLazy(Path path, boolean littleEndian) throws IOException {
+        ByteBuffer buffer;
+        try (InputStream fis = Files.newInputStream(path);
+             BufferedInputStream bis = new BufferedInputStream(fis)) {
+            CompressionCodec codec = Compression.detect(bis);
+            if (codec == Compression.NONE) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } else {
+                try (InputStream in = codec.decompress(bis)) {
+                    buffer = ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+        }
+        return readLazy(buffer, NBTFormat.of(littleEndian));
+    }
+
+    /**
+     * Reads the root compound from a buffer lazily, starting at its position.
+     * <p>
+     * Compounds and lists are only skipped over and decode their direct children on first access,
+     * so reading a few values from a large tree only decodes the containers on the way to them.
+     * Lazy tags keep referencing the buffer, so it must not be modified while they are in use.
+     * The buffer's position is advanced past the tag.
+     *
+     * @param buffer Buffer to read from.
+     * @param format Format of the data.
+     * @return The lazy root compound.
+     * @throws IOException If the root tag is malformed or ends prematurely.
+     * @see tech.minediamond.micanbt.tag.LazyPayload
+     */
+    public static CompoundTag readLazy(ByteBuffer buffer, NBTFormat format) throws IOException {
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, format, true);
+        Tag tag = decoder.readTag(true);
+        buffer.position(decoder.position());
+        return asCompound(tag);
+    }
+
+    public static CompoundTag readInto(InputStream in, NBTFormat format, CompoundTag target) throws IOException {
+        return readInto(dataInput(in, format), target);
+    }
+
+    /**
+     * Reads the root compound from a stream into an existing compound, see {@link #readInto(DataInput, CompoundTag)}.
+     *
+     * @param in      Stream to read from.
+     * @param options Format, string pool and limits to read with.
+     * @param target  Compound to read into.
+     * @return The target.
+     * @throws IOException              If an I/O error occurs, the data is malformed or a limit is exceeded.
+     * @throws IllegalArgumentException If the options select paths.
+     */
+    public static CompoundTag readInto(InputStream in, NBTReadOptions options, CompoundTag target) throws IOException {
+        checkWhole(options);
+        return readInto(dataInput(in, options, false), target);
+    }
+
+    private static void checkWhole(NBTReadOptions options) {
+        if (options.getPaths() != null) {
+            throw new IllegalArgumentException("Paths cannot be selected when reading into a compound.");
+        }
+    }
+
+    /**
+     * Reads the root compound into an existing compound, reusing its tags instead of creating new ones.
+     * <p>
+     * A tag is reused when the data has a tag of the same type and name in its place, arrays are reused when their
+     * length is unchanged, and lists and compounds are refilled recursively. Other tags are replaced by new ones, and
+     * tags that are not in the data are removed, so the target ends up equal to what {@link #readTag(DataInput)} would
+     * return, apart from its own name. When the same shape of data is read repeatedly, this allocates next to nothing
+     * besides the strings, which a {@link NBTStringPool} can take care of as well.
+     * If reading fails, the target is left partially updated.
+     *
+     * @param in     Stream to read from.
+     * @param target Compound to read into.
+     * @return The target.
+     * @throws IOException If an I/O error occurs or the data is malformed.
+     */
+    public static CompoundTag readInto(DataInput in, CompoundTag target) throws IOException {
+        TagRefiller.of(in).refillRoot(target);
+        return target;
+    }
+
+    public static CompoundTag readInto(ByteBuffer buffer, NBTFormat format, CompoundTag target) throws IOException {
+        return readInto(buffer, NBTReadOptions.of(format), target);
+    }
+
+    /**
+     * Reads the root compound from a buffer into an existing compound, see {@link #readInto(DataInput, CompoundTag)}.
+     *
+     * @param buffer  Buffer to read from, its position is advanced past the tag.
+     * @param options Format, string pool and limits to read with.
+     * @param target  Compound to read into.
+     * @return The target.
+     * @throws IOException              If the data is malformed, ends prematurely or exceeds a limit.
+     * @throws IllegalArgumentException If the options select paths.
+     */
+    public static CompoundTag readInto(ByteBuffer buffer, NBTReadOptions options, CompoundTag target) throws IOException {
+        checkWhole(options);
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, options);
+        decoder.refiller().refillRoot(target);
+        buffer.position(decoder.position());
+        return target;
     }
 
     public static Tag readTag(DataInput in) throws IOException {
@@ -62,16 +530,364 @@ public class NBTReader {
             return null;
         }
 
-        String name = in.readUTF();
-        Tag tag;
+        return readPayload(in, id, in.readUTF());
+    }
 
+    /**
+     * Reads a tag whose root has no name: a type id directly followed by the payload.
+     *
+     * @param in Stream to read from.
+     * @return The read tag with an empty name, or null if the data starts with an end tag.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Tag readUnnamedTag(DataInput in) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id == 0) {
+            return null;
+        }
+
+        return readPayload(in, id, "");
+    }
+
+    /**
+     * Reads the payload of a tag of the given type, which is all that is stored for the elements of a list.
+     * The limits of the stream, if any, are enforced here.
+     *
+     * @param in   Stream to read from.
+     * @param id   Type id of the tag.
+     * @param name Name to give the tag.
+     * @return The read tag.
+     * @throws IOException If an I/O error occurs, the type is unknown or a limit is exceeded.
+     */
+    public static Tag readPayload(DataInput in, int id, String name) throws IOException {
+        Tag tag = createTag(id, name);
+        NBTReadLimits.Budget budget = in instanceof BufferedDataInputStream stream ? stream.budget() : null;
+        if (budget == null) {
+            tag.read(in);
+            return tag;
+        }
+
+        boolean container = id == CompoundTag.ID || id == ListTag.ID;
+        budget.enter(container, ((BufferedDataInputStream) in).consumed());
+        tag.read(in);
+        budget.exit(container);
+        return tag;
+    }
+
+    /**
+     * Skips a named tag, including its type id and name, without creating it.
+     *
+     * @param in Stream to read from.
+     * @return The type id of the skipped tag, or 0 if an end tag was read.
+     * @throws IOException If an I/O error occurs or the data is malformed.
+     * @see #skipTag(DataInput, int)
+     */
+    public static int skipTag(DataInput in) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id != 0) {
+            NBTStreamParser.skipString(in);
+            NBTStreamParser.skipPayload(in, id);
+        }
+        return id;
+    }
+
+    /**
+     * Skips the payload of a tag of the given type without creating any tags.
+     * Strings and arrays are skipped by their length prefixes, and lists of fixed-size elements in one go,
+     * so only compounds and lists of variable-size elements have to be walked.
+     *
+     * @param in     Stream to read from, positioned after the type id and name of the tag.
+     * @param typeId Type id of the tag.
+     * @throws IOException If an I/O error occurs, the type is unknown or the data is malformed.
+     */
+    public static void skipTag(DataInput in, int typeId) throws IOException {
+        NBTStreamParser.skipPayload(in, typeId);
+    }
+
+    /**
+     * Skips the payload of a tag of the given type in a buffer, see {@link #skipTag(DataInput, int)}.
+     *
+     * @param buffer Buffer to read from, its position is advanced past the payload.
+     * @param format Format of the data.
+     * @param typeId Type id of the tag.
+     * @throws IOException If the type is unknown or the data is malformed or ends prematurely.
+     */
+    public static void skipTag(ByteBuffer buffer, NBTFormat format, int typeId) throws IOException {
+        ByteBufferDecoder decoder = new ByteBufferDecoder(buffer, format);
+        decoder.skipPayload(typeId);
+        buffer.position(decoder.position());
+    }
+
+    static Tag createTag(int id, String name) throws IOException {
         try {
-            tag = TagFactory.createInstance(id, name);
+            return TagFactory.createInstance(id, name);
         } catch (TagCreateException e) {
             throw new IOException("Failed to create tag.", e);
         }
+    }
 
-        tag.read(in);
-        return tag;
+    /**
+     * Reads the length-prefixed payload of a byte array tag.
+     *
+     * @param in Stream to read from.
+     * @return The read array.
+     * @throws IOException If an I/O error occurs or the length is negative.
+     */
+    public static byte[] readByteArray(DataInput in) throws IOException {
+        return readByteArray(in, null);
+    }
+
+    /**
+     * Reads the payload of a byte array tag into the given array if it has the same length, otherwise into a new one.
+     */
+    static byte[] readByteArray(DataInput in, byte[] reuse) throws IOException {
+        int length = readArrayLength(in, Byte.BYTES);
+        byte[] value = reuse != null && reuse.length == length ? reuse : new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * Reads the length-prefixed payload of an int array tag.
+     * The elements are read in chunks and decoded from a byte array view instead of one {@code readInt()} per element,
+     * for the library's own fixed-width streams. The Bedrock network format, where every element is a VarInt, and other
+     * streams go through {@code readInt()} for each element.
+     *
+     * @param in Stream to read from.
+     * @return The read array.
+     * @throws IOException If an I/O error occurs or the length is negative.
+     */
+    public static int[] readIntArray(DataInput in) throws IOException {
+        return readIntArray(in, null);
+    }
+
+    static int[] readIntArray(DataInput in, int[] reuse) throws IOException {
+        int length = readArrayLength(in, Integer.BYTES);
+        int[] value = reuse != null && reuse.length == length ? reuse : new int[length];
+        readInts(in, value, 0, length);
+        return value;
+    }
+
+    /**
+     * Reads ints into part of an array. Streams of known byte order are read in chunks and decoded from a byte array
+     * view, others one {@code readInt()} at a time.
+     */
+    static void readInts(DataInput in, int[] value, int offset, int count) throws IOException {
+        ByteOrder order = byteOrder(in);
+        int end = offset + count;
+        if (order == null) {
+            for (int index = offset; index < end; index++) {
+                value[index] = in.readInt();
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? INT_LITTLE_ENDIAN : INT_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Integer.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = offset; index < end; ) {
+            int chunkCount = Math.min(end - index, chunk.length / Integer.BYTES);
+            in.readFully(chunk, 0, chunkCount * Integer.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                value[index++] = (int) view.get(chunk, chunkIndex * Integer.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Reads the length-prefixed payload of a long array tag.
+     * The elements are read in chunks and decoded from a byte array view instead of one {@code readLong()} per element,
+     * for the library's own fixed-width streams. The Bedrock network format, where every element is a VarLong, and other
+     * streams go through {@code readLong()} for each element.
+     *
+     * @param in Stream to read from.
+     * @return The read array.
+     * @throws IOException If an I/O error occurs or the length is negative.
+     */
+    public static long[] readLongArray(DataInput in) throws IOException {
+        return readLongArray(in, null);
+    }
+
+    static long[] readLongArray(DataInput in, long[] reuse) throws IOException {
+        int length = readArrayLength(in, Long.BYTES);
+        long[] value = reuse != null && reuse.length == length ? reuse : new long[length];
+        readLongs(in, value, 0, length);
+        return value;
+    }
+
+    /**
+     * Reads longs into part of an array. Streams of known byte order are read in chunks and decoded from a byte array
+     * view, others one {@code readLong()} at a time.
+     */
+    static void readLongs(DataInput in, long[] value, int offset, int count) throws IOException {
+        ByteOrder order = byteOrder(in);
+        int end = offset + count;
+        if (order == null) {
+            for (int index = offset; index < end; index++) {
+                value[index] = in.readLong();
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? LONG_LITTLE_ENDIAN : LONG_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Long.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = offset; index < end; ) {
+            int chunkCount = Math.min(end - index, chunk.length / Long.BYTES);
+            in.readFully(chunk, 0, chunkCount * Long.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                value[index++] = (long) view.get(chunk, chunkIndex * Long.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Gets the byte order of the fixed-width numbers of a stream whose encoding is known, which allows decoding them
+     * from chunks of bytes. Returns null for the Bedrock network format and for other implementations of
+     * {@link DataInput}, which are read one number at a time.
+     */
+    static ByteOrder byteOrder(DataInput in) {
+        if (in instanceof NetworkDataInputStream) {
+            return null;
+        }
+        if (in instanceof BufferedDataInputStream stream) {
+            return stream.order();
+        }
+        // The readInt() and readLong() of DataInputStream are final and big-endian.
+        if (in instanceof DataInputStream) {
+            return ByteOrder.BIG_ENDIAN;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the elements of an int list, after its type and count. The elements are read in chunks like those of
+     * {@link #readIntArray(DataInput)}, and the count is checked against the limits of the stream first.
+     *
+     * @param in    Stream to read from.
+     * @param count Number of elements, which must not be negative.
+     * @return An array holding exactly the elements.
+     * @throws IOException If an I/O error occurs or a limit is exceeded.
+     */
+    public static int[] readIntElements(DataInput in, int count) throws IOException {
+        checkElements(in, count, in instanceof NetworkDataInputStream ? 1 : Integer.BYTES);
+        // The array grows with the data read, so a corrupt count cannot allocate much more memory than the data.
+        int[] value = new int[Math.min(count, ARRAY_CHUNK_SIZE / Integer.BYTES)];
+        for (int index = 0; index < count; index = value.length) {
+            if (index == value.length) {
+                value = Arrays.copyOf(value, (int) Math.min(count, 2L * index));
+            }
+            readInts(in, value, index, value.length - index);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the elements of a float list, after its type and count, see {@link #readIntElements(DataInput, int)}.
+     *
+     * @param in    Stream to read from.
+     * @param count Number of elements, which must not be negative.
+     * @return An array holding exactly the elements.
+     * @throws IOException If an I/O error occurs or a limit is exceeded.
+     */
+    public static float[] readFloatElements(DataInput in, int count) throws IOException {
+        checkElements(in, count, Float.BYTES);
+        float[] value = new float[Math.min(count, ARRAY_CHUNK_SIZE / Float.BYTES)];
+        for (int index = 0; index < count; index = value.length) {
+            if (index == value.length) {
+                value = Arrays.copyOf(value, (int) Math.min(count, 2L * index));
+            }
+            readFloats(in, value, index, value.length - index);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the elements of a double list, after its type and count, see {@link #readIntElements(DataInput, int)}.
+     *
+     * @param in    Stream to read from.
+     * @param count Number of elements, which must not be negative.
+     * @return An array holding exactly the elements.
+     * @throws IOException If an I/O error occurs or a limit is exceeded.
+     */
+    public static double[] readDoubleElements(DataInput in, int count) throws IOException {
+        checkElements(in, count, Double.BYTES);
+        double[] value = new double[Math.min(count, ARRAY_CHUNK_SIZE / Double.BYTES)];
+        for (int index = 0; index < count; index = value.length) {
+            if (index == value.length) {
+                value = Arrays.copyOf(value, (int) Math.min(count, 2L * index));
+            }
+            readDoubles(in, value, index, value.length - index);
+        }
+        return value;
+    }
+
+    /**
+     * Reads floats into part of an array, see {@link #readInts(DataInput, int[], int, int)}.
+     */
+    private static void readFloats(DataInput in, float[] value, int offset, int count) throws IOException {
+        // Unlike ints, floats are not VarInts in the network format.
+        ByteOrder order = in instanceof NetworkDataInputStream ? ByteOrder.LITTLE_ENDIAN : byteOrder(in);
+        int end = offset + count;
+        if (order == null) {
+            for (int index = offset; index < end; index++) {
+                value[index] = in.readFloat();
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? INT_LITTLE_ENDIAN : INT_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Float.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = offset; index < end; ) {
+            int chunkCount = Math.min(end - index, chunk.length / Float.BYTES);
+            in.readFully(chunk, 0, chunkCount * Float.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                value[index++] = Float.intBitsToFloat((int) view.get(chunk, chunkIndex * Float.BYTES));
+            }
+        }
+    }
+
+    /**
+     * Reads doubles into part of an array, see {@link #readInts(DataInput, int[], int, int)}.
+     */
+    private static void readDoubles(DataInput in, double[] value, int offset, int count) throws IOException {
+        // Unlike longs, doubles are not VarLongs in the network format.
+        ByteOrder order = in instanceof NetworkDataInputStream ? ByteOrder.LITTLE_ENDIAN : byteOrder(in);
+        int end = offset + count;
+        if (order == null) {
+            for (int index = offset; index < end; index++) {
+                value[index] = in.readDouble();
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? LONG_LITTLE_ENDIAN : LONG_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Double.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = offset; index < end; ) {
+            int chunkCount = Math.min(end - index, chunk.length / Double.BYTES);
+            in.readFully(chunk, 0, chunkCount * Double.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                value[index++] = Double.longBitsToDouble((long) view.get(chunk, chunkIndex * Double.BYTES));
+            }
+        }
+    }
+
+    private static int readArrayLength(DataInput in, int elementSize) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length: " + length);
+        }
+        // Network ints and longs are VarInts, which take at least one byte per element.
+        checkElements(in, length, in instanceof NetworkDataInputStream ? 1 : elementSize);
+        return length;
+    }
+
+    /**
+     * Checks a number of elements against the limits of the stream, if any.
+     *
+     * @param minSize Least number of encoded bytes per element.
+     */
+    private static void checkElements(DataInput in, int count, int minSize) throws IOException {
+        if (in instanceof BufferedDataInputStream stream && stream.budget() != null) {
+            stream.budget().checkArray(count, minSize, stream.consumed());
+        }
     }
 }
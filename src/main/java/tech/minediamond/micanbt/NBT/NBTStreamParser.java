@@ -0,0 +1,199 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Walks binary NBT and reports it to an {@link NBTVisitor}, or skips over it, without creating tags.
+ */
+final class NBTStreamParser {
+
+    private NBTStreamParser() {
+    }
+
+    static void accept(DataInput in, NBTVisitor visitor) throws IOException {
+        int id = in.readUnsignedByte();
+        if (id == 0) {
+            return;
+        }
+
+        if (visitor.visitKey(id, in.readUTF())) {
+            acceptPayload(in, id, visitor);
+        } else {
+            skipPayload(in, id);
+        }
+    }
+
+    private static void acceptPayload(DataInput in, int id, NBTVisitor visitor) throws IOException {
+        switch (id) {
+            case ByteTag.ID -> visitor.visitByte(in.readByte());
+            case ShortTag.ID -> visitor.visitShort(in.readShort());
+            case IntTag.ID -> visitor.visitInt(in.readInt());
+            case LongTag.ID -> visitor.visitLong(in.readLong());
+            case FloatTag.ID -> visitor.visitFloat(in.readFloat());
+            case DoubleTag.ID -> visitor.visitDouble(in.readDouble());
+            case ByteArrayTag.ID -> visitor.visitByteArray(NBTReader.readByteArray(in));
+            case StringTag.ID -> visitor.visitString(in.readUTF());
+            case ListTag.ID -> {
+                int typeId = in.readUnsignedByte();
+                int count = in.readInt();
+                if (count > 0 && typeId == 0) {
+                    throw new IOException("ListTag type is TAG_End but count is > 0");
+                }
+                visitor.visitListStart(typeId, Math.max(count, 0));
+                for (int index = 0; index < count; index++) {
+                    acceptPayload(in, typeId, visitor);
+                }
+                visitor.visitListEnd();
+            }
+            case CompoundTag.ID -> {
+                visitor.visitCompoundStart();
+                try {
+                    int childId;
+                    while ((childId = in.readUnsignedByte()) != 0) {
+                        if (visitor.visitKey(childId, in.readUTF())) {
+                            acceptPayload(in, childId, visitor);
+                        } else {
+                            skipPayload(in, childId);
+                        }
+                    }
+                } catch (EOFException e) {
+                    throw new IOException("Closing EndTag was not found!");
+                }
+                visitor.visitCompoundEnd();
+            }
+            case IntArrayTag.ID -> visitor.visitIntArray(NBTReader.readIntArray(in));
+            case LongArrayTag.ID -> visitor.visitLongArray(NBTReader.readLongArray(in));
+            default -> throw unknownTag(id);
+        }
+    }
+
+    /**
+     * Skips the payload of a tag using the length prefixes of strings, arrays and lists.
+     * The limits of the stream, if any, are enforced like for {@link NBTReader#readPayload(DataInput, int, String)}.
+     */
+    static void skipPayload(DataInput in, int id) throws IOException {
+        NBTReadLimits.Budget budget = in instanceof BufferedDataInputStream stream ? stream.budget() : null;
+        if (budget == null) {
+            skipValue(in, id);
+            return;
+        }
+
+        boolean container = id == CompoundTag.ID || id == ListTag.ID;
+        budget.enter(container, ((BufferedDataInputStream) in).consumed());
+        skipValue(in, id);
+        budget.exit(container);
+    }
+
+    private static void skipValue(DataInput in, int id) throws IOException {
+        boolean network = in instanceof NetworkDataInputStream;
+        switch (id) {
+            case ByteTag.ID -> skipFully(in, Byte.BYTES);
+            case ShortTag.ID -> skipFully(in, Short.BYTES);
+            case IntTag.ID -> {
+                if (network) {
+                    in.readInt();
+                } else {
+                    skipFully(in, Integer.BYTES);
+                }
+            }
+            case LongTag.ID -> {
+                if (network) {
+                    in.readLong();
+                } else {
+                    skipFully(in, Long.BYTES);
+                }
+            }
+            case FloatTag.ID -> skipFully(in, Float.BYTES);
+            case DoubleTag.ID -> skipFully(in, Double.BYTES);
+            case ByteArrayTag.ID -> skipFully(in, arrayLength(in));
+            case StringTag.ID -> skipString(in);
+            case ListTag.ID -> {
+                int typeId = in.readUnsignedByte();
+                int count = in.readInt();
+                if (count > 0 && typeId == 0) {
+                    throw new IOException("ListTag type is TAG_End but count is > 0");
+                }
+                skipElements(in, typeId, count, network);
+            }
+            case CompoundTag.ID -> {
+                try {
+                    int childId;
+                    while ((childId = in.readUnsignedByte()) != 0) {
+                        skipString(in);
+                        skipPayload(in, childId);
+                    }
+                } catch (EOFException e) {
+                    throw new IOException("Closing EndTag was not found!");
+                }
+            }
+            case IntArrayTag.ID -> skipElements(in, IntTag.ID, arrayLength(in), network);
+            case LongArrayTag.ID -> skipElements(in, LongTag.ID, arrayLength(in), network);
+            default -> throw unknownTag(id);
+        }
+    }
+
+    private static void skipElements(DataInput in, int typeId, int count, boolean network) throws IOException {
+        int size = switch (typeId) {
+            case ByteTag.ID -> Byte.BYTES;
+            case ShortTag.ID -> Short.BYTES;
+            case IntTag.ID -> network ? -1 : Integer.BYTES;
+            case LongTag.ID -> network ? -1 : Long.BYTES;
+            case FloatTag.ID -> Float.BYTES;
+            case DoubleTag.ID -> Double.BYTES;
+            default -> -1;
+        };
+
+        if (size > 0) {
+            long total = (long) count * size;
+            while (total > 0) {
+                int chunk = (int) Math.min(total, Integer.MAX_VALUE);
+                skipFully(in, chunk);
+                total -= chunk;
+            }
+        } else {
+            for (int index = 0; index < count; index++) {
+                skipPayload(in, typeId);
+            }
+        }
+    }
+
+    static void skipString(DataInput in) throws IOException {
+        if (in instanceof NetworkDataInputStream network) {
+            int length = network.readUnsignedVarInt();
+            if (length < 0) {
+                throw new IOException("Negative string length: " + (length & 0xFFFFFFFFL));
+            }
+            skipFully(in, length);
+        } else {
+            skipFully(in, in.readUnsignedShort());
+        }
+    }
+
+    private static int arrayLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length: " + length);
+        }
+        return length;
+    }
+
+    private static void skipFully(DataInput in, int count) throws IOException {
+        while (count > 0) {
+            int skipped = in.skipBytes(count);
+            if (skipped <= 0) {
+                // skipBytes may give up early, reading a byte tells apart a slow stream from its end.
+                in.readByte();
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static IOException unknownTag(int id) {
+        return new IOException("Failed to create tag.", new TagCreateException("Could not find tag with ID \"" + id + "\"."));
+    }
+}
@@ -0,0 +1,324 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Writes binary NBT straight to a stream, without any {@link Tag} being created.
+ * <p>
+ * Tags in a compound, and tags written at the root, are named; the elements of a list are not and use the overloads
+ * without a name. Lists declare their element type and length up front, which is checked for every element and when
+ * the list is ended. Every {@link #beginCompound(String)} and {@link #beginList(String, int, int)} has to be matched by
+ * {@link #endCompound()} or {@link #endList()}. Misuse throws an {@link IllegalStateException} or, for a wrong element
+ * type, an {@link IllegalArgumentException}, before anything invalid is written.
+ * <pre>{@code
+ * try (NBTStreamWriter writer = new NBTStreamWriter(out)) {
+ *     writer.beginCompound("");
+ *     writer.writeInt("DataVersion", 3465);
+ *     writer.beginList("sections", CompoundTag.ID, sections.length);
+ *     for (Section section : sections) {
+ *         writer.beginCompound();
+ *         writer.writeByte("Y", section.y());
+ *         writer.writeLongArray("data", section.data());
+ *         writer.endCompound();
+ *     }
+ *     writer.endList();
+ *     writer.endCompound();
+ * }
+ * }</pre>
+ */
+public final class NBTStreamWriter implements Flushable, Closeable {
+    private static final int COMPOUND = -1;
+    private final DataOutput out;
+    private final OutputStream stream;
+    /**
+     * Per open container, {@link #COMPOUND} or the element type of a list.
+     */
+    private int[] types = new int[16];
+    /**
+     * Per open list, the number of elements still to be written.
+     */
+    private int[] remaining = new int[16];
+    private int depth;
+
+    /**
+     * Creates a writer for the Java Edition format.
+     *
+     * @param out Stream to write to.
+     */
+    public NBTStreamWriter(OutputStream out) {
+        this(out, NBTFormat.JAVA);
+    }
+
+    public NBTStreamWriter(OutputStream out, boolean littleEndian) {
+        this(out, NBTFormat.of(littleEndian));
+    }
+
+    public NBTStreamWriter(OutputStream out, NBTFormat format) {
+        this.out = NBTWriter.dataOutput(out, format);
+        this.stream = out;
+    }
+
+    /**
+     * Creates a writer on top of a data output, which also decides the format.
+     * Closing the writer does not close the output.
+     *
+     * @param out Output to write to.
+     */
+    public NBTStreamWriter(DataOutput out) {
+        this.out = out;
+        this.stream = null;
+    }
+
+    /**
+     * Gets the number of containers that have been begun but not ended yet.
+     *
+     * @return The current nesting depth, 0 at the root.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public void beginCompound(String name) throws IOException {
+        this.beginTag(CompoundTag.ID, name);
+        this.push(COMPOUND, 0);
+    }
+
+    /**
+     * Begins a compound that is an element of the current list, or an unnamed root.
+     */
+    public void beginCompound() throws IOException {
+        this.beginCompound(null);
+    }
+
+    public void endCompound() throws IOException {
+        if (this.depth == 0 || this.types[this.depth - 1] != COMPOUND) {
+            throw new IllegalStateException("No compound to end.");
+        }
+        this.out.writeByte(0);
+        this.depth--;
+    }
+
+    /**
+     * Begins a list with a fixed element type and length.
+     *
+     * @param name          Name of the list.
+     * @param elementTypeId Type id of the elements, may be 0 for an empty list.
+     * @param count         Number of elements that will be written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void beginList(String name, int elementTypeId, int count) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative list length: " + count);
+        }
+        if (elementTypeId < 0 || elementTypeId > LongArrayTag.ID || (elementTypeId == 0 && count > 0)) {
+            throw new IllegalArgumentException("Invalid list element type: " + elementTypeId);
+        }
+        this.beginTag(ListTag.ID, name);
+        this.out.writeByte(elementTypeId);
+        this.out.writeInt(count);
+        this.push(elementTypeId, count);
+    }
+
+    /**
+     * Begins a list that is an element of the current list, or an unnamed root.
+     */
+    public void beginList(int elementTypeId, int count) throws IOException {
+        this.beginList(null, elementTypeId, count);
+    }
+
+    public void endList() {
+        if (this.depth == 0 || this.types[this.depth - 1] == COMPOUND) {
+            throw new IllegalStateException("No list to end.");
+        }
+        if (this.remaining[this.depth - 1] != 0) {
+            throw new IllegalStateException("List is missing " + this.remaining[this.depth - 1] + " elements.");
+        }
+        this.depth--;
+    }
+
+    public void writeByte(String name, byte value) throws IOException {
+        this.beginTag(ByteTag.ID, name);
+        this.out.writeByte(value);
+    }
+
+    public void writeByte(byte value) throws IOException {
+        this.writeByte(null, value);
+    }
+
+    public void writeShort(String name, short value) throws IOException {
+        this.beginTag(ShortTag.ID, name);
+        this.out.writeShort(value);
+    }
+
+    public void writeShort(short value) throws IOException {
+        this.writeShort(null, value);
+    }
+
+    public void writeInt(String name, int value) throws IOException {
+        this.beginTag(IntTag.ID, name);
+        this.out.writeInt(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        this.writeInt(null, value);
+    }
+
+    public void writeLong(String name, long value) throws IOException {
+        this.beginTag(LongTag.ID, name);
+        this.out.writeLong(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        this.writeLong(null, value);
+    }
+
+    public void writeFloat(String name, float value) throws IOException {
+        this.beginTag(FloatTag.ID, name);
+        this.out.writeFloat(value);
+    }
+
+    public void writeFloat(float value) throws IOException {
+        this.writeFloat(null, value);
+    }
+
+    public void writeDouble(String name, double value) throws IOException {
+        this.beginTag(DoubleTag.ID, name);
+        this.out.writeDouble(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        this.writeDouble(null, value);
+    }
+
+    public void writeString(String name, String value) throws IOException {
+        this.beginTag(StringTag.ID, name);
+        this.out.writeUTF(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        this.writeString(null, value);
+    }
+
+    public void writeByteArray(String name, byte[] value) throws IOException {
+        this.beginTag(ByteArrayTag.ID, name);
+        NBTWriter.writeByteArray(this.out, value);
+    }
+
+    public void writeByteArray(byte[] value) throws IOException {
+        this.writeByteArray(null, value);
+    }
+
+    public void writeIntArray(String name, int[] value) throws IOException {
+        this.beginTag(IntArrayTag.ID, name);
+        NBTWriter.writeIntArray(this.out, value);
+    }
+
+    public void writeIntArray(int[] value) throws IOException {
+        this.writeIntArray(null, value);
+    }
+
+    public void writeLongArray(String name, long[] value) throws IOException {
+        this.beginTag(LongArrayTag.ID, name);
+        NBTWriter.writeLongArray(this.out, value);
+    }
+
+    public void writeLongArray(long[] value) throws IOException {
+        this.writeLongArray(null, value);
+    }
+
+    /**
+     * Writes an already built tag. Inside a list only its payload is written, elsewhere it is written with its name.
+     *
+     * @param tag Tag to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTag(Tag tag) throws IOException {
+        this.beginTag(tag.getTagId(), this.inList() ? null : tag.getName());
+        tag.write(this.out);
+    }
+
+    /**
+     * Writes out any buffered data and flushes the underlying stream.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        NBTWriter.drain(this.out);
+        if (this.stream != null) {
+            this.stream.flush();
+        } else if (this.out instanceof Flushable flushable) {
+            flushable.flush();
+        }
+    }
+
+    /**
+     * Flushes the writer and closes the underlying stream if the writer was created on one. The stream is closed even
+     * if a compound or list has not been ended, without flushing the incomplete data first.
+     *
+     * @throws IOException           If an I/O error occurs.
+     * @throws IllegalStateException If a compound or list has not been ended, and no I/O error occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean balanced = this.depth == 0;
+        try {
+            if (balanced) {
+                this.flush();
+            }
+        } finally {
+            if (this.stream != null) {
+                this.stream.close();
+            }
+        }
+        if (!balanced) {
+            throw new IllegalStateException(this.depth + " compounds or lists have not been ended.");
+        }
+    }
+
+    private boolean inList() {
+        return this.depth > 0 && this.types[this.depth - 1] != COMPOUND;
+    }
+
+    /**
+     * Checks that a tag of the given type may be written here and writes its header.
+     * The name is null for list elements and unnamed roots.
+     */
+    private void beginTag(int id, String name) throws IOException {
+        if (this.inList()) {
+            if (name != null) {
+                throw new IllegalStateException("List elements do not have a name.");
+            }
+            int index = this.depth - 1;
+            if (this.types[index] != id) {
+                throw new IllegalArgumentException(String.format("Tag type mismatch. Expected ID: %d, got: %d", this.types[index], id));
+            }
+            if (this.remaining[index] == 0) {
+                throw new IllegalStateException("List already has all of its elements.");
+            }
+            this.remaining[index]--;
+            return;
+        }
+
+        if (name == null && this.depth > 0) {
+            throw new IllegalStateException("Tags in a compound need a name.");
+        }
+        this.out.writeByte(id);
+        if (name != null) {
+            this.out.writeUTF(name);
+        }
+    }
+
+    private void push(int type, int count) {
+        if (this.depth == this.types.length) {
+            this.types = Arrays.copyOf(this.types, this.depth * 2);
+            this.remaining = Arrays.copyOf(this.remaining, this.depth * 2);
+        }
+        this.types[this.depth] = type;
+        this.remaining[this.depth] = count;
+        this.depth++;
+    }
+}
@@ -0,0 +1,106 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+
+/**
+ * A bounded pool of decoded tag names and string values, keyed on their encoded bytes.
+ * <p>
+ * Binary NBT repeats the same few hundred keys and ids ({@code "id"}, {@code "Count"}, {@code "minecraft:stone"})
+ * over and over. Decoding through a pool looks the encoded bytes up first, so a hit returns the canonical instance
+ * without building a String. The pool is a fixed-size table where a string can sit in one of a few neighbouring
+ * slots; once they are all taken a new string evicts one of them, so the pool never grows past its capacity. Strings longer than {@link #MAX_LENGTH} bytes are never pooled.
+ * <p>
+ * A pool may be shared between readers on different threads. Concurrent misses can overwrite each other's slots,
+ * which only costs a later miss.
+ *
+ * @see NBTReadOptions#withPool(NBTStringPool)
+ */
+public final class NBTStringPool {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int MAX_LENGTH = 64;
+    private static final int PROBES = 4;
+    private final Entry[] table;
+    private final int mask;
+
+    public NBTStringPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity Maximum number of strings, rounded up to a power of two.
+     */
+    public NBTStringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return this.table.length;
+    }
+
+    /**
+     * Removes all strings from this pool.
+     */
+    public void clear() {
+        Arrays.fill(this.table, null);
+    }
+
+    /**
+     * Gets the string for the encoded bytes, decoding and pooling it on a miss.
+     */
+    String get(byte[] bytes, int offset, int length, boolean modifiedUtf8) throws UTFDataFormatException {
+        if (length > MAX_LENGTH) {
+            return StringCodec.decode(bytes, offset, length, modifiedUtf8);
+        }
+
+        int hash = modifiedUtf8 ? 1 : 0;
+        for (int index = offset; index < offset + length; index++) {
+            hash = 31 * hash + bytes[index];
+        }
+        int start = hash ^ (hash >>> 16);
+
+        int free = -1;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & this.mask;
+            Entry entry = this.table[slot];
+            if (entry == null) {
+                free = slot;
+                break;
+            }
+            if (entry.hash == hash && entry.modifiedUtf8 == modifiedUtf8
+                    && Arrays.equals(entry.key, 0, entry.key.length, bytes, offset, offset + length)) {
+                return entry.value;
+            }
+        }
+
+        String value = StringCodec.decode(bytes, offset, length, modifiedUtf8);
+        // Without a free slot, one of the probed entries is evicted, picked by the high bits of the hash.
+        int slot = free >= 0 ? free : (start + (hash >>> 30)) & this.mask;
+        this.table[slot] = new Entry(hash, Arrays.copyOfRange(bytes, offset, offset + length), modifiedUtf8, value);
+        return value;
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final byte[] key;
+        private final boolean modifiedUtf8;
+        private final String value;
+
+        private Entry(int hash, byte[] key, boolean modifiedUtf8, String value) {
+            this.hash = hash;
+            this.key = key;
+            this.modifiedUtf8 = modifiedUtf8;
+            this.value = value;
+        }
+    }
+}
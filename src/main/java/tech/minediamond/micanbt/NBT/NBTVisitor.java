@@ -0,0 +1,74 @@
+package tech.minediamond.micanbt.NBT;
+
+/**
+ * Receives the contents of binary NBT as they are parsed, without any {@link tech.minediamond.micanbt.tag.Tag}
+ * being created.
+ * <p>
+ * A compound produces {@link #visitCompoundStart()}, then for every entry {@link #visitKey(int, String)} followed by
+ * the events of its value, and finally {@link #visitCompoundEnd()}. A list produces
+ * {@link #visitListStart(int, int)}, the events of every element and {@link #visitListEnd()}.
+ * The root tag is reported like a compound entry. All methods do nothing by default.
+ *
+ * @see NBTReader#accept(DataInput, NBTVisitor)
+ */
+public interface NBTVisitor {
+
+    /**
+     * Called before the value of a named tag, which is the root or an entry of a compound.
+     *
+     * @param typeId Type id of the value.
+     * @param name   Name of the tag.
+     * @return Whether to visit the value. If {@code false} the value is skipped without being decoded.
+     */
+    default boolean visitKey(int typeId, String name) {
+        return true;
+    }
+
+    default void visitCompoundStart() {
+    }
+
+    default void visitCompoundEnd() {
+    }
+
+    /**
+     * Called at the start of a list.
+     *
+     * @param elementTypeId Type id of the elements, 0 for an empty list without a type.
+     * @param size          Number of elements.
+     */
+    default void visitListStart(int elementTypeId, int size) {
+    }
+
+    default void visitListEnd() {
+    }
+
+    default void visitByte(byte value) {
+    }
+
+    default void visitShort(short value) {
+    }
+
+    default void visitInt(int value) {
+    }
+
+    default void visitLong(long value) {
+    }
+
+    default void visitFloat(float value) {
+    }
+
+    default void visitDouble(double value) {
+    }
+
+    default void visitString(String value) {
+    }
+
+    default void visitByteArray(byte[] value) {
+    }
+
+    default void visitIntArray(int[] value) {
+    }
+
+    default void visitLongArray(long[] value) {
+    }
+}
@@ -1,20 +1,37 @@
 package tech.minediamond.micanbt.NBT;
 
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.compression.CompressionCodec;
 import tech.minediamond.micanbt.tag.CompoundTag;
 import tech.minediamond.micanbt.tag.Tag;
 
 import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class NBTWriter {
+    private static final int ARRAY_CHUNK_SIZE = 8192;
+    private static final VarHandle INT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 
     public static void write(CompoundTag tag, Path path) throws IOException {
         write(tag, path, true, false);
     }
 
     public static void write(CompoundTag tag, Path path, boolean compressed, boolean littleEndian) throws IOException {
+        write(tag, path, compressed ? Compression.GZIP : Compression.NONE, littleEndian);
+    }
+
+    public static void write(CompoundTag tag, Path path, CompressionCodec codec, boolean littleEndian) throws IOException {
         Path parent = path.getParent();
         if (parent != null && Files.notExists(parent)) {
             Files.createDirectories(parent);
@@ -22,17 +39,44 @@ public class NBTWriter {
 
         try (OutputStream fos = Files.newOutputStream(path);
              BufferedOutputStream bos = new BufferedOutputStream(fos);
-             OutputStream out = compressed ? new GZIPOutputStream(bos) : bos) {
+             OutputStream out = codec == Compression.NONE ? bos : new BufferedOutputStream(codec.compress(bos))) {
             writeTag(out, tag, littleEndian);
         }
     }
 
+    public static CompletableFuture<Void> writeAsync(CompoundTag tag, Path path) {
+        return writeAsync(tag, path, Compression.GZIP, false, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Writes a file without blocking the calling thread.
+     * The tag is encoded and compressed on the executor, then written through an
+     * {@link java.nio.channels.AsynchronousFileChannel}. The tag must not be modified until the returned future completes.
+     *
+     * @param tag          Root compound to write.
+     * @param path         File to write to. Missing parent directories are created.
+     * @param codec        Compression to apply.
+     * @param littleEndian Whether to write little-endian data (Bedrock Edition).
+     * @param executor     Executor for encoding and compressing.
+     * @return A future that completes once the file is written, failing with the {@link IOException} if it cannot be.
+     */
+    public static CompletableFuture<Void> writeAsync(CompoundTag tag, Path path, CompressionCodec codec,
+                                                     boolean littleEndian, Executor executor) {
+        return AsyncFileIO.write(tag, path, codec, littleEndian, executor);
+    }
+
     public static void writeTag(OutputStream out, Tag tag) throws IOException {
         writeTag(out, tag, false);
     }
 
     public static void writeTag(OutputStream out, Tag tag, boolean littleEndian) throws IOException {
-        writeTag((DataOutput) (littleEndian ? new LittleEndianDataOutputStream(out) : new DataOutputStream(out)), tag);
+        writeTag(out, tag, NBTFormat.of(littleEndian));
+    }
+
+    public static void writeTag(OutputStream out, Tag tag, NBTFormat format) throws IOException {
+        DataOutput dataOut = dataOutput(out, format);
+        writeTag(dataOut, tag);
+        drain(dataOut);
     }
 
     public static void writeTag(DataOutput out, Tag tag) throws IOException {
@@ -44,4 +88,328 @@ public class NBTWriter {
             out.writeByte(0);
         }
     }
+
+    /**
+     * Writes a tag without the name of its root, as sent by the Java protocol since 1.20.2.
+     *
+     * @param out    Stream to write to.
+     * @param tag    Tag to write, or null to write an end tag.
+     * @param format Format to write in.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeUnnamedTag(OutputStream out, Tag tag, NBTFormat format) throws IOException {
+        DataOutput dataOut = dataOutput(out, format);
+        writeUnnamedTag(dataOut, tag);
+        drain(dataOut);
+    }
+
+    /**
+     * Writes a tag without the name of its root: a type id directly followed by the payload.
+     *
+     * @param out Stream to write to.
+     * @param tag Tag to write, or null to write an end tag.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeUnnamedTag(DataOutput out, Tag tag) throws IOException {
+        if (tag != null) {
+            out.writeByte(tag.getTagId());
+            tag.write(out);
+        } else {
+            out.writeByte(0);
+        }
+    }
+
+    /**
+     * Gets the exact number of bytes {@link #writeTag(DataOutput, Tag)} writes for a tag.
+     *
+     * @param tag    Tag to measure, or null for an end tag.
+     * @param format Format to measure in.
+     * @return The size of the named tag in bytes.
+     * @throws IOException If the tag cannot be written, e.g. because a string is too long.
+     */
+    public static long sizeOf(Tag tag, NBTFormat format) throws IOException {
+        SizeCounter counter = new SizeCounter(format);
+        writeTag(counter, tag);
+        return counter.size();
+    }
+
+    /**
+     * Gets the exact number of bytes {@link #writeUnnamedTag(DataOutput, Tag)} writes for a tag.
+     *
+     * @param tag    Tag to measure, or null for an end tag.
+     * @param format Format to measure in.
+     * @return The size of the unnamed tag in bytes.
+     * @throws IOException If the tag cannot be written, e.g. because a string is too long.
+     */
+    public static long sizeOfUnnamed(Tag tag, NBTFormat format) throws IOException {
+        SizeCounter counter = new SizeCounter(format);
+        writeUnnamedTag(counter, tag);
+        return counter.size();
+    }
+
+    public static void writeTag(ByteBuffer buffer, Tag tag, boolean littleEndian) throws IOException {
+        writeTag(buffer, tag, NBTFormat.of(littleEndian));
+    }
+
+    /**
+     * Encodes a tag directly into a buffer, starting at its position.
+     * The buffer's own byte order is ignored, and its position is advanced past the tag.
+     * Use {@link #sizeOf(Tag, NBTFormat)} to allocate a buffer of the right size up front.
+     *
+     * @param buffer Buffer to write to. May be a heap or direct buffer.
+     * @param tag    Tag to write, or null to write an end tag.
+     * @param format Format to write in.
+     * @throws IOException                      If the tag cannot be written, e.g. because a string is too long.
+     * @throws java.nio.BufferOverflowException If the tag does not fit. The buffer's position is left unchanged.
+     */
+    public static void writeTag(ByteBuffer buffer, Tag tag, NBTFormat format) throws IOException {
+        ByteBufferEncoder encoder = new ByteBufferEncoder(buffer, format);
+        writeTag(encoder, tag);
+        buffer.position(encoder.position());
+    }
+
+    /**
+     * Encodes a tag without the name of its root directly into a buffer, starting at its position.
+     *
+     * @param buffer Buffer to write to.
+     * @param tag    Tag to write, or null to write an end tag.
+     * @param format Format to write in.
+     * @throws IOException If the tag cannot be written.
+     * @see #writeTag(ByteBuffer, Tag, NBTFormat)
+     */
+    public static void writeUnnamedTag(ByteBuffer buffer, Tag tag, NBTFormat format) throws IOException {
+        ByteBufferEncoder encoder = new ByteBufferEncoder(buffer, format);
+        writeUnnamedTag(encoder, tag);
+        buffer.position(encoder.position());
+    }
+
+    /**
+     * Gets the format a data output writes in.
+     *
+     * @return The format, or null if the output is not known to write in any of them.
+     */
+    static NBTFormat formatOf(DataOutput out) {
+        if (out instanceof NetworkDataOutputStream) {
+            return NBTFormat.BEDROCK_NETWORK;
+        } else if (out instanceof BufferedDataOutputStream stream) {
+            return stream.order() == ByteOrder.BIG_ENDIAN ? NBTFormat.JAVA : NBTFormat.BEDROCK;
+        } else if (out instanceof ByteBufferEncoder encoder) {
+            return encoder.format();
+        } else if (out instanceof SizeCounter counter) {
+            return counter.format();
+        } else if (out.getClass() == DataOutputStream.class) {
+            return NBTFormat.JAVA;
+        }
+        return null;
+    }
+
+    static DataOutput dataOutput(OutputStream out, NBTFormat format) {
+        return switch (format) {
+            case JAVA -> new BufferedDataOutputStream(out, ByteOrder.BIG_ENDIAN);
+            case BEDROCK -> new BufferedDataOutputStream(out, ByteOrder.LITTLE_ENDIAN);
+            case BEDROCK_NETWORK -> new NetworkDataOutputStream(out);
+        };
+    }
+
+    static void drain(DataOutput out) throws IOException {
+        if (out instanceof BufferedDataOutputStream stream) {
+            stream.drain();
+        }
+    }
+
+    /**
+     * Writes the length-prefixed payload of a byte array tag.
+     *
+     * @param out   Stream to write to.
+     * @param value Array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeByteArray(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Writes the length-prefixed payload of an int array tag.
+     * The elements are encoded into chunks through a byte array view instead of one {@code writeInt()} per element,
+     * for the library's own fixed-width streams. The Bedrock network format, where every element is a VarInt, and other
+     * streams go through {@code writeInt()} for each element.
+     *
+     * @param out   Stream to write to.
+     * @param value Array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeIntArray(DataOutput out, int[] value) throws IOException {
+        if (out instanceof ByteBufferEncoder encoder) {
+            encoder.writeIntArray(value);
+            return;
+        }
+        if (out instanceof SizeCounter counter) {
+            counter.writeIntArray(value);
+            return;
+        }
+        out.writeInt(value.length);
+        writeInts(out, value, value.length);
+    }
+
+    /**
+     * Writes the length-prefixed payload of a long array tag.
+     * The elements are encoded into chunks through a byte array view instead of one {@code writeLong()} per element,
+     * for the library's own fixed-width streams. The Bedrock network format, where every element is a VarLong, and other
+     * streams go through {@code writeLong()} for each element.
+     *
+     * @param out   Stream to write to.
+     * @param value Array to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeLongArray(DataOutput out, long[] value) throws IOException {
+        if (out instanceof ByteBufferEncoder encoder) {
+            encoder.writeLongArray(value);
+            return;
+        }
+        if (out instanceof SizeCounter counter) {
+            counter.writeLongArray(value);
+            return;
+        }
+        out.writeInt(value.length);
+        writeLongs(out, value, value.length);
+    }
+
+    /**
+     * Writes the elements of an int list, after its type and count. The elements are encoded into chunks like those of
+     * {@link #writeIntArray(DataOutput, int[])}.
+     *
+     * @param out   Stream to write to.
+     * @param value Array holding the elements.
+     * @param count Number of elements to write from the start of the array.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeIntElements(DataOutput out, int[] value, int count) throws IOException {
+        writeInts(out, value, count);
+    }
+
+    /**
+     * Writes the elements of a float list, after its type and count, see {@link #writeIntElements(DataOutput, int[], int)}.
+     *
+     * @param out   Stream to write to.
+     * @param value Array holding the elements.
+     * @param count Number of elements to write from the start of the array.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeFloatElements(DataOutput out, float[] value, int count) throws IOException {
+        // Unlike ints, floats are not VarInts in the network format.
+        ByteOrder order = out instanceof NetworkDataOutputStream ? ByteOrder.LITTLE_ENDIAN : byteOrder(out);
+        if (order == null) {
+            for (int index = 0; index < count; index++) {
+                out.writeFloat(value[index]);
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? INT_LITTLE_ENDIAN : INT_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Float.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = 0; index < count; ) {
+            int chunkCount = Math.min(count - index, chunk.length / Float.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                view.set(chunk, chunkIndex * Float.BYTES, Float.floatToIntBits(value[index++]));
+            }
+            out.write(chunk, 0, chunkCount * Float.BYTES);
+        }
+    }
+
+    /**
+     * Writes the elements of a double list, after its type and count, see {@link #writeIntElements(DataOutput, int[], int)}.
+     *
+     * @param out   Stream to write to.
+     * @param value Array holding the elements.
+     * @param count Number of elements to write from the start of the array.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeDoubleElements(DataOutput out, double[] value, int count) throws IOException {
+        // Unlike longs, doubles are not VarLongs in the network format.
+        ByteOrder order = out instanceof NetworkDataOutputStream ? ByteOrder.LITTLE_ENDIAN : byteOrder(out);
+        if (order == null) {
+            for (int index = 0; index < count; index++) {
+                out.writeDouble(value[index]);
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? LONG_LITTLE_ENDIAN : LONG_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Double.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = 0; index < count; ) {
+            int chunkCount = Math.min(count - index, chunk.length / Double.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                view.set(chunk, chunkIndex * Double.BYTES, Double.doubleToLongBits(value[index++]));
+            }
+            out.write(chunk, 0, chunkCount * Double.BYTES);
+        }
+    }
+
+    /**
+     * Writes ints from the start of an array. Streams of known byte order get chunks encoded through a byte array view,
+     * others one {@code writeInt()} at a time.
+     */
+    private static void writeInts(DataOutput out, int[] value, int count) throws IOException {
+        ByteOrder order = byteOrder(out);
+        if (order == null) {
+            for (int index = 0; index < count; index++) {
+                out.writeInt(value[index]);
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? INT_LITTLE_ENDIAN : INT_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Integer.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = 0; index < count; ) {
+            int chunkCount = Math.min(count - index, chunk.length / Integer.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                view.set(chunk, chunkIndex * Integer.BYTES, value[index++]);
+            }
+            out.write(chunk, 0, chunkCount * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Writes longs from the start of an array. Streams of known byte order get chunks encoded through a byte array view,
+     * others one {@code writeLong()} at a time.
+     */
+    private static void writeLongs(DataOutput out, long[] value, int count) throws IOException {
+        ByteOrder order = byteOrder(out);
+        if (order == null) {
+            for (int index = 0; index < count; index++) {
+                out.writeLong(value[index]);
+            }
+            return;
+        }
+
+        VarHandle view = order == ByteOrder.LITTLE_ENDIAN ? LONG_LITTLE_ENDIAN : LONG_BIG_ENDIAN;
+        byte[] chunk = new byte[(int) Math.min((long) count * Long.BYTES, ARRAY_CHUNK_SIZE)];
+        for (int index = 0; index < count; ) {
+            int chunkCount = Math.min(count - index, chunk.length / Long.BYTES);
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                view.set(chunk, chunkIndex * Long.BYTES, value[index++]);
+            }
+            out.write(chunk, 0, chunkCount * Long.BYTES);
+        }
+    }
+
+    /**
+     * Gets the byte order of the fixed-width numbers of a stream whose encoding is known, which allows encoding them
+     * into chunks of bytes. Returns null for the Bedrock network format and for other implementations of
+     * {@link DataOutput}, which are written one number at a time.
+     */
+    static ByteOrder byteOrder(DataOutput out) {
+        if (out instanceof NetworkDataOutputStream) {
+            return null;
+        }
+        if (out instanceof BufferedDataOutputStream stream) {
+            return stream.order();
+        }
+        // The writeInt() and writeLong() of DataOutputStream are final and big-endian.
+        if (out instanceof DataOutputStream) {
+            return ByteOrder.BIG_ENDIAN;
+        }
+        return null;
+    }
 }
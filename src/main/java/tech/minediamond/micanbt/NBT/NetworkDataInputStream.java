@@ -0,0 +1,72 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link java.io.DataInput} for the NBT variant of the Bedrock network protocol.
+ * <p>
+ * It is little-endian like a little-endian {@link BufferedDataInputStream}, except that ints and longs are ZigZag encoded
+ * VarInts/VarLongs and string lengths are unsigned VarInts. Since list sizes and array lengths are read as ints,
+ * they are VarInts as well. VarInts are decoded from the buffered window without allocating.
+ */
+class NetworkDataInputStream extends BufferedDataInputStream {
+
+    public NetworkDataInputStream(InputStream in) {
+        this(in, false);
+    }
+
+    public NetworkDataInputStream(InputStream in, boolean readAhead) {
+        this(in, readAhead, null);
+    }
+
+    public NetworkDataInputStream(InputStream in, boolean readAhead, NBTStringPool pool) {
+        super(in, ByteOrder.LITTLE_ENDIAN, readAhead, pool);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int value = this.readUnsignedVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        long value = this.readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int length = this.readUnsignedVarInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + (length & 0xFFFFFFFFL));
+        }
+        return this.readUTF(length);
+    }
+
+    int readUnsignedVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too big");
+    }
+
+    long readUnsignedVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarLong is too big");
+    }
+}
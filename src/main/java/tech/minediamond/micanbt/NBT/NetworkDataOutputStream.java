@@ -0,0 +1,50 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link java.io.DataOutput} for the NBT variant of the Bedrock network protocol.
+ *
+ * @see NetworkDataInputStream
+ */
+class NetworkDataOutputStream extends BufferedDataOutputStream {
+
+    public NetworkDataOutputStream(OutputStream out) {
+        super(out, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void writeInt(int i) throws IOException {
+        this.writeUnsignedVarInt((i << 1) ^ (i >> 31));
+    }
+
+    @Override
+    public void writeLong(long l) throws IOException {
+        this.writeUnsignedVarLong((l << 1) ^ (l >> 63));
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        int length = StringCodec.encodedLength(s, false);
+        this.writeUnsignedVarInt(length);
+        this.writeEncoded(s, length);
+    }
+
+    void writeUnsignedVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.write(value);
+    }
+
+    void writeUnsignedVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            this.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.write((int) value);
+    }
+}
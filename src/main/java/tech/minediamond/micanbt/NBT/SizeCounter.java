@@ -0,0 +1,147 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.DataOutput;
+import java.io.UTFDataFormatException;
+
+/**
+ * A {@link DataOutput} that only counts the bytes a tag would take in a format.
+ * <p>
+ * Tags are sized by writing them into a counter, so every tag, including lazy and custom ones, is measured by the
+ * same code that encodes it.
+ *
+ * @see NBTWriter#sizeOf(tech.minediamond.micanbt.tag.Tag, NBTFormat)
+ */
+final class SizeCounter implements DataOutput {
+    private final NBTFormat format;
+    private long size;
+
+    SizeCounter(NBTFormat format) {
+        this.format = format;
+    }
+
+    NBTFormat format() {
+        return this.format;
+    }
+
+    long size() {
+        return this.size;
+    }
+
+    void add(long count) {
+        this.size += count;
+    }
+
+    void writeIntArray(int[] value) {
+        this.writeInt(value.length);
+        if (this.format != NBTFormat.BEDROCK_NETWORK) {
+            this.size += (long) value.length * Integer.BYTES;
+            return;
+        }
+        for (int element : value) {
+            this.writeInt(element);
+        }
+    }
+
+    void writeLongArray(long[] value) {
+        this.writeInt(value.length);
+        if (this.format != NBTFormat.BEDROCK_NETWORK) {
+            this.size += (long) value.length * Long.BYTES;
+            return;
+        }
+        for (long element : value) {
+            this.writeLong(element);
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        this.size++;
+    }
+
+    @Override
+    public void write(byte[] b) {
+        this.size += b.length;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        this.size += len;
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        this.size++;
+    }
+
+    @Override
+    public void writeByte(int v) {
+        this.size++;
+    }
+
+    @Override
+    public void writeShort(int v) {
+        this.size += Short.BYTES;
+    }
+
+    @Override
+    public void writeChar(int v) {
+        this.size += Character.BYTES;
+    }
+
+    @Override
+    public void writeInt(int v) {
+        this.size += this.format == NBTFormat.BEDROCK_NETWORK ? varIntSize((v << 1) ^ (v >> 31)) : Integer.BYTES;
+    }
+
+    @Override
+    public void writeLong(long v) {
+        this.size += this.format == NBTFormat.BEDROCK_NETWORK ? varLongSize((v << 1) ^ (v >> 63)) : Long.BYTES;
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        this.size += Float.BYTES;
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        this.size += Double.BYTES;
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        this.size += s.length();
+    }
+
+    @Override
+    public void writeChars(String s) {
+        this.size += (long) s.length() * Character.BYTES;
+    }
+
+    @Override
+    public void writeUTF(String s) throws UTFDataFormatException {
+        switch (this.format) {
+            case JAVA -> this.size += Short.BYTES + checkLength(StringCodec.encodedLength(s, true));
+            case BEDROCK -> this.size += Short.BYTES + checkLength(StringCodec.encodedLength(s, false));
+            case BEDROCK_NETWORK -> {
+                int length = StringCodec.encodedLength(s, false);
+                this.size += varIntSize(length) + length;
+            }
+        }
+    }
+
+    private static int checkLength(int length) throws UTFDataFormatException {
+        if (length > 0xFFFF) {
+            throw StringCodec.tooLong(length);
+        }
+        return length;
+    }
+
+    static int varIntSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    static int varLongSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+}
@@ -0,0 +1,138 @@
+package tech.minediamond.micanbt.NBT;
+
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes the strings of binary NBT: modified UTF-8 for the Java Edition format and standard UTF-8 for
+ * Bedrock.
+ * <p>
+ * Both directions work on caller-provided arrays, usually the window of a buffered stream, so no temporary byte array
+ * is needed per string. Pure ASCII, by far the most common case for names and ids, is handled by a plain copy loop.
+ * Encoding matches {@link java.io.DataOutput#writeUTF(String)} for modified UTF-8 and
+ * {@link String#getBytes(java.nio.charset.Charset)} for standard UTF-8, which replaces unpaired surrogates with
+ * {@code '?'}.
+ */
+final class StringCodec {
+
+    private StringCodec() {
+    }
+
+    static String decode(byte[] bytes, int offset, int length, boolean modifiedUtf8) throws UTFDataFormatException {
+        int end = offset + length;
+        int index = offset;
+        while (index < end && bytes[index] >= 0) {
+            index++;
+        }
+        if (index == end) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        if (!modifiedUtf8) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        char[] chars = new char[length];
+        int count = 0;
+        for (int ascii = offset; ascii < index; ascii++) {
+            chars[count++] = (char) bytes[ascii];
+        }
+        while (index < end) {
+            int b = bytes[index] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                index++;
+            } else if ((b & 0xE0) == 0xC0) {
+                if (index + 1 >= end || (bytes[index + 1] & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException("malformed input around byte " + (index - offset));
+                }
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[index + 1] & 0x3F));
+                index += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                if (index + 2 >= end || (bytes[index + 1] & 0xC0) != 0x80 || (bytes[index + 2] & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException("malformed input around byte " + (index - offset));
+                }
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[index + 1] & 0x3F) << 6) | (bytes[index + 2] & 0x3F));
+                index += 3;
+            } else {
+                throw new UTFDataFormatException("malformed input around byte " + (index - offset));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Gets the encoded length of a string.
+     */
+    static int encodedLength(String s, boolean modifiedUtf8) {
+        int length = s.length();
+        int index = 0;
+        while (index < length && s.charAt(index) < 0x80 && s.charAt(index) != 0) {
+            index++;
+        }
+        if (index == length) {
+            return length;
+        }
+
+        int encoded = length;
+        for (; index < length; index++) {
+            char c = s.charAt(index);
+            if (c < 0x80) {
+                if (c == 0 && modifiedUtf8) {
+                    encoded++;
+                }
+            } else if (c < 0x800) {
+                encoded++;
+            } else if (modifiedUtf8) {
+                encoded += 2;
+            } else if (Character.isHighSurrogate(c) && index + 1 < length && Character.isLowSurrogate(s.charAt(index + 1))) {
+                encoded += 2;
+                index++;
+            } else if (!Character.isSurrogate(c)) {
+                encoded += 2;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes a string into the array, which must have room for its {@link #encodedLength(String, boolean)}.
+     *
+     * @return The offset after the last written byte.
+     */
+    static int encode(String s, byte[] bytes, int offset, boolean modifiedUtf8) {
+        int length = s.length();
+        int index = 0;
+        for (char c; index < length && (c = s.charAt(index)) < 0x80 && c != 0; index++) {
+            bytes[offset++] = (byte) c;
+        }
+
+        for (; index < length; index++) {
+            char c = s.charAt(index);
+            if (c < 0x80 && (c != 0 || !modifiedUtf8)) {
+                bytes[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[offset++] = (byte) (0xC0 | (c >> 6));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!modifiedUtf8 && Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && index + 1 < length && Character.isLowSurrogate(s.charAt(index + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++index));
+                    bytes[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[offset++] = '?';
+                }
+            } else {
+                bytes[offset++] = (byte) (0xE0 | (c >> 12));
+                bytes[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    static UTFDataFormatException tooLong(int length) {
+        return new UTFDataFormatException("encoded string too long: " + length + " bytes");
+    }
+}
@@ -0,0 +1,366 @@
+package tech.minediamond.micanbt.NBT;
+
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes binary NBT into an existing tag tree instead of building a new one.
+ * <p>
+ * A tag is reused when the data has a tag of the same type and name at its place: primitive and string tags get their
+ * value set, arrays are filled in place when their length is unchanged, and compounds and lists are refilled
+ * recursively. Everything else is decoded into a new tag that replaces the old one, and entries or elements that are no
+ * longer present are removed. Decoding a payload of the same shape again therefore only allocates strings (unless a
+ * {@link NBTStringPool} is used) and nothing else.
+ * <p>
+ * Subclasses provide the primitives of a source, see {@link #of(DataInput)} and {@link ByteBufferDecoder#refiller()}.
+ *
+ * @see NBTReader#readInto(DataInput, CompoundTag)
+ */
+abstract class TagRefiller {
+
+    static TagRefiller of(DataInput in) {
+        return new DataInputRefiller(in);
+    }
+
+    abstract int readUnsignedByte() throws IOException;
+
+    abstract byte readByte() throws IOException;
+
+    abstract short readShort() throws IOException;
+
+    abstract int readInt() throws IOException;
+
+    abstract long readLong() throws IOException;
+
+    abstract float readFloat() throws IOException;
+
+    abstract double readDouble() throws IOException;
+
+    abstract String readString() throws IOException;
+
+    /**
+     * Reads a byte array payload, into the given array if it has the right length.
+     */
+    abstract byte[] readByteArray(byte[] reuse) throws IOException;
+
+    abstract int[] readIntArray(int[] reuse) throws IOException;
+
+    abstract long[] readLongArray(long[] reuse) throws IOException;
+
+    /**
+     * Decodes a payload into a new tag, enforcing the limits of the source.
+     */
+    abstract Tag readPayload(int id, String name) throws IOException;
+
+    /**
+     * Gets the budget of the source, or null if it is unlimited.
+     */
+    abstract NBTReadLimits.Budget budget();
+
+    /**
+     * Gets the number of bytes consumed from the source.
+     */
+    abstract long consumed();
+
+    /**
+     * Gets the least number of bytes an int is encoded with, which is 1 for VarInts.
+     */
+    abstract int intSize();
+
+    /**
+     * Reads a named root compound into the target. The name of the target is kept.
+     */
+    void refillRoot(CompoundTag target) throws IOException {
+        int id = this.readUnsignedByte();
+        if (id != CompoundTag.ID) {
+            throw new IOException("Root tag is not a CompoundTag! Found ID: " + id);
+        }
+        this.readString();
+        this.refillPayload(CompoundTag.ID, target.getName(), target);
+    }
+
+    /**
+     * Reads a payload, reusing the old tag if it has the same type and name.
+     *
+     * @return The old tag, or the new tag that has to replace it.
+     */
+    private Tag refill(int id, String name, Tag old) throws IOException {
+        if (old == null || old.getTagId() != id || !old.getName().equals(name)) {
+            return this.readPayload(id, name);
+        }
+        return this.refillPayload(id, name, old);
+    }
+
+    /**
+     * Reads a payload into a tag of the same type and name, enforcing the limits of the source like
+     * {@link #readPayload(int, String)} does.
+     */
+    private Tag refillPayload(int id, String name, Tag old) throws IOException {
+        NBTReadLimits.Budget budget = this.budget();
+        if (budget == null) {
+            return this.refillValue(id, name, old);
+        }
+
+        boolean container = id == CompoundTag.ID || id == ListTag.ID;
+        budget.enter(container, this.consumed());
+        Tag tag = this.refillValue(id, name, old);
+        budget.exit(container);
+        return tag;
+    }
+
+    private Tag refillValue(int id, String name, Tag old) throws IOException {
+        switch (id) {
+            case ByteTag.ID -> ((ByteTag) old).setValue(this.readByte());
+            case ShortTag.ID -> ((ShortTag) old).setValue(this.readShort());
+            case IntTag.ID -> ((IntTag) old).setValue(this.readInt());
+            case LongTag.ID -> ((LongTag) old).setValue(this.readLong());
+            case FloatTag.ID -> ((FloatTag) old).setValue(this.readFloat());
+            case DoubleTag.ID -> ((DoubleTag) old).setValue(this.readDouble());
+            case StringTag.ID -> ((StringTag) old).setValue(this.readString());
+            case ByteArrayTag.ID -> {
+                byte[] value = ((ByteArrayTag) old).getRawValue();
+                byte[] read = this.readByteArray(value);
+                return read == value ? old : new ByteArrayTag(name, read);
+            }
+            case IntArrayTag.ID -> {
+                int[] value = ((IntArrayTag) old).getRawValue();
+                int[] read = this.readIntArray(value);
+                return read == value ? old : new IntArrayTag(name, read);
+            }
+            case LongArrayTag.ID -> {
+                long[] value = ((LongArrayTag) old).getRawValue();
+                long[] read = this.readLongArray(value);
+                return read == value ? old : new LongArrayTag(name, read);
+            }
+            case CompoundTag.ID -> this.refillEntries((CompoundTag) old);
+            case ListTag.ID -> {
+                return this.refillList(name, (ListTag<?>) old);
+            }
+            default -> {
+                return this.readPayload(id, name);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Reads the entries of a compound payload into the compound.
+     * As long as the entries come in the order of the existing ones, they are matched up without any lookups.
+     */
+    private void refillEntries(CompoundTag compound) throws IOException {
+        if (compound.isLazy()) {
+            compound.clear();
+        }
+        Map<String, Tag> entries = compound.getOwnedValue();
+        Iterator<Map.Entry<String, Tag>> expected = entries.entrySet().iterator();
+        // Entries from the first one out of order on, the map is only rebuilt after all of them are read.
+        List<Tag> reordered = null;
+        boolean mismatched = false;
+        try {
+            int id;
+            while ((id = this.readUnsignedByte()) != 0) {
+                String name = this.readString();
+                if (reordered == null) {
+                    if (expected.hasNext()) {
+                        Map.Entry<String, Tag> entry = expected.next();
+                        if (entry.getKey().equals(name)) {
+                            Tag tag = this.refill(id, name, entry.getValue());
+                            if (tag != entry.getValue()) {
+                                entry.setValue(tag);
+                            }
+                            continue;
+                        }
+                        mismatched = true;
+                    }
+                    reordered = new ArrayList<>();
+                }
+                reordered.add(this.refill(id, name, entries.get(name)));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Closing EndTag was not found!");
+        }
+
+        if (mismatched) {
+            expected.remove();
+        }
+        while (expected.hasNext()) {
+            expected.next();
+            expected.remove();
+        }
+        if (reordered != null) {
+            for (Tag tag : reordered) {
+                entries.put(tag.getName(), tag);
+            }
+        }
+    }
+
+    /**
+     * Reads a list payload, reusing the list if its element type is unchanged and its elements by index.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the elements are only replaced by tags of the element type
+    private Tag refillList(String name, ListTag<?> old) throws IOException {
+        int typeId = this.readUnsignedByte();
+        int count = this.readInt();
+        if (count > 0 && typeId == 0) {
+            throw new IOException("ListTag type is TAG_End but count is > 0");
+        }
+
+        ListTag<Tag> list = (ListTag<Tag>) old;
+        if (list.getElementTypeId() != typeId) {
+            list = new ListTag<>(name, typeId);
+        } else if (list.isLazy()) {
+            list.clear();
+        }
+        if (typeId == IntTag.ID || typeId == FloatTag.ID || typeId == DoubleTag.ID) {
+            this.refillPrimitives(list, typeId, count);
+            return list;
+        }
+        List<Tag> elements = list.getOwnedValue();
+        int reused = Math.min(elements.size(), Math.max(count, 0));
+        this.checkElements(count, 1);
+        for (int index = 0; index < reused; index++) {
+            Tag element = elements.get(index);
+            Tag tag = this.refill(typeId, "", element);
+            if (tag != element) {
+                elements.set(index, tag);
+            }
+        }
+        if (elements.size() > reused) {
+            elements.subList(reused, elements.size()).clear();
+        }
+        for (int index = reused; index < count; index++) {
+            elements.add(this.readPayload(typeId, ""));
+        }
+        return list;
+    }
+
+    /**
+     * Reads the elements of an int, float or double list through the primitive accessors, so a list that stores its
+     * elements as primitives keeps doing so.
+     */
+    private void refillPrimitives(ListTag<Tag> list, int typeId, int count) throws IOException {
+        this.checkElements(count, switch (typeId) {
+            case IntTag.ID -> this.intSize();
+            case FloatTag.ID -> Float.BYTES;
+            default -> Double.BYTES;
+        });
+        int reused = Math.min(list.size(), Math.max(count, 0));
+        for (int index = 0; index < reused; index++) {
+            switch (typeId) {
+                case IntTag.ID -> list.setInt(index, this.readInt());
+                case FloatTag.ID -> list.setFloat(index, this.readFloat());
+                default -> list.setDouble(index, this.readDouble());
+            }
+        }
+        for (int index = list.size() - 1; index >= reused; index--) {
+            list.remove(index);
+        }
+        for (int index = reused; index < count; index++) {
+            switch (typeId) {
+                case IntTag.ID -> list.addInt(this.readInt());
+                case FloatTag.ID -> list.addFloat(this.readFloat());
+                default -> list.addDouble(this.readDouble());
+            }
+        }
+    }
+
+    /**
+     * Checks the element count of a list before its elements are read, like the limits of the source do for new lists.
+     */
+    private void checkElements(int count, int elementSize) throws IOException {
+        NBTReadLimits.Budget budget = this.budget();
+        if (budget != null && count > 0) {
+            budget.checkArray(count, elementSize, this.consumed());
+        }
+    }
+
+    private static final class DataInputRefiller extends TagRefiller {
+        private final DataInput in;
+
+        private DataInputRefiller(DataInput in) {
+            this.in = in;
+        }
+
+        @Override
+        int readUnsignedByte() throws IOException {
+            return this.in.readUnsignedByte();
+        }
+
+        @Override
+        byte readByte() throws IOException {
+            return this.in.readByte();
+        }
+
+        @Override
+        short readShort() throws IOException {
+            return this.in.readShort();
+        }
+
+        @Override
+        int readInt() throws IOException {
+            return this.in.readInt();
+        }
+
+        @Override
+        long readLong() throws IOException {
+            return this.in.readLong();
+        }
+
+        @Override
+        float readFloat() throws IOException {
+            return this.in.readFloat();
+        }
+
+        @Override
+        double readDouble() throws IOException {
+            return this.in.readDouble();
+        }
+
+        @Override
+        String readString() throws IOException {
+            return this.in.readUTF();
+        }
+
+        @Override
+        byte[] readByteArray(byte[] reuse) throws IOException {
+            return NBTReader.readByteArray(this.in, reuse);
+        }
+
+        @Override
+        int[] readIntArray(int[] reuse) throws IOException {
+            return NBTReader.readIntArray(this.in, reuse);
+        }
+
+        @Override
+        long[] readLongArray(long[] reuse) throws IOException {
+            return NBTReader.readLongArray(this.in, reuse);
+        }
+
+        @Override
+        Tag readPayload(int id, String name) throws IOException {
+            return NBTReader.readPayload(this.in, id, name);
+        }
+
+        @Override
+        NBTReadLimits.Budget budget() {
+            return this.in instanceof BufferedDataInputStream stream ? stream.budget() : null;
+        }
+
+        @Override
+        long consumed() {
+            return ((BufferedDataInputStream) this.in).consumed();
+        }
+
+        @Override
+        int intSize() {
+            return this.in instanceof NetworkDataInputStream ? 1 : Integer.BYTES;
+        }
+    }
+}
@@ -92,7 +92,7 @@ public class SNBTReader {
             String subName = parseString();
             snbtBuffer.skipEmptyChar(); // empty char between `"` and `:`
             snbtBuffer.skipOrThrow(Tokens.COMPOUND_KEY_VALUE_SEPARATOR); // `:`
-            compoundTag.put(parseTag(subName));
+            compoundTag.putOwned(parseTag(subName));
             if (!snbtBuffer.peekOrConsume(Tokens.VALUE_SEPARATOR)) {// `,`
                 break;
             }
@@ -187,7 +187,7 @@ public class SNBTReader {
             return listTag;
         }
         while (snbtBuffer.peek() != Tokens.ARRAY_END) {
-            listTag.add(parseTag(""));
+            listTag.addOwned(parseTag(""));
             if (!snbtBuffer.peekOrConsume(Tokens.VALUE_SEPARATOR)) {// `,`
                 break;
             }
@@ -88,7 +88,7 @@ public class SNBTWriter {
             newLineAndAddTab();
         }
         boolean isFirst = true;
-        for (Tag subTag : compoundTag) {
+        for (Tag subTag : compoundTag.getReadOnlyValue().values()) {
             if (isFirst) {
                 isFirst = false;
             } else {
@@ -126,7 +126,7 @@ public class SNBTWriter {
             depth++;
             newLineAndAddTab();
         }
-        for (Tag subTag : listTag) {
+        for (Tag subTag : listTag.getReadOnlyValue()) {
             if (isFirst) {
                 isFirst = false;
             } else {
@@ -0,0 +1,129 @@
+package tech.minediamond.micanbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The compression formats supported out of the box.
+ */
+public enum Compression implements CompressionCodec {
+
+    /**
+     * Uncompressed data.
+     */
+    NONE {
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+    },
+
+    /**
+     * GZip, used by {@code level.dat}, player data and structure files.
+     */
+    GZIP {
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+    },
+
+    /**
+     * Zlib-wrapped DEFLATE, used by region file chunks.
+     */
+    ZLIB {
+        @Override
+        public InputStream decompress(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+    },
+
+    /**
+     * LZ4 blocks in the framing of lz4-java's {@code LZ4BlockOutputStream}, which the game uses for
+     * region files since 1.20.5. Much faster than zlib at the cost of a worse ratio.
+     */
+    LZ4 {
+        @Override
+        public InputStream decompress(InputStream in) {
+            return new LZ4BlockInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new LZ4BlockOutputStream(out);
+        }
+    };
+
+    /**
+     * The number of bytes {@link #detect(InputStream)} needs to look at.
+     */
+    public static final int MAGIC_LENGTH = 8;
+
+    /**
+     * Detects the compression of a stream from its first bytes, leaving the stream position unchanged.
+     *
+     * @param in Stream to inspect. Must support {@link InputStream#mark(int)}.
+     * @return The detected compression, {@link #NONE} if the data does not start with a known magic.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Compression detect(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Stream does not support mark/reset");
+        }
+
+        byte[] header = new byte[MAGIC_LENGTH];
+        in.mark(MAGIC_LENGTH);
+        int length = 0;
+        try {
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+        } finally {
+            in.reset();
+        }
+
+        return detect(header, length);
+    }
+
+    /**
+     * Detects the compression of data from its first bytes.
+     *
+     * @param header The first bytes of the data.
+     * @param length The number of valid bytes in {@code header}.
+     * @return The detected compression, {@link #NONE} if the data does not start with a known magic.
+     */
+    public static Compression detect(byte[] header, int length) {
+        if (length >= 2 && header[0] == 0x1f && header[1] == (byte) 0x8b) {
+            return GZIP;
+        }
+        // Only the 32 KiB window header is accepted, smaller windows would collide with NBT tag ids.
+        if (length >= 2 && header[0] == 0x78 && (0x7800 | (header[1] & 0xFF)) % 31 == 0) {
+            return ZLIB;
+        }
+        if (length >= LZ4BlockOutputStream.MAGIC.length && LZ4BlockOutputStream.hasMagic(header)) {
+            return LZ4;
+        }
+        return NONE;
+    }
+}
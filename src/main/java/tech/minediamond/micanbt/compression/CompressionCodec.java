@@ -0,0 +1,35 @@
+package tech.minediamond.micanbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression format that NBT data can be stored in.
+ * <p>
+ * The built-in formats are listed in {@link Compression}, custom formats can be plugged into
+ * {@code NBT.read}/{@code NBT.write} by implementing this interface.
+ *
+ * @see Compression
+ */
+public interface CompressionCodec {
+
+    /**
+     * Wraps a stream of compressed data into a stream returning the decompressed data.
+     *
+     * @param in Stream of compressed data.
+     * @return Stream of decompressed data. Closing it closes {@code in}.
+     * @throws IOException If the compressed data has an invalid header.
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Wraps a stream so that the data written to it is compressed.
+     * The compressed data is only complete once the returned stream has been closed.
+     *
+     * @param out Stream to write the compressed data to.
+     * @return Stream accepting the uncompressed data. Closing it closes {@code out}.
+     * @throws IOException If an I/O error occurs while writing a header.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+}
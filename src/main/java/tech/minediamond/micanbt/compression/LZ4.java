@@ -0,0 +1,217 @@
+package tech.minediamond.micanbt.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A dependency-free implementation of the LZ4 block format.
+ * <p>
+ * The compressor is the greedy single-probe variant of the reference "fast" compressor,
+ * which favours speed over ratio like the default compressor of lz4-java does.
+ */
+final class LZ4 {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_LOG = 14;
+
+    private LZ4() {
+    }
+
+    /**
+     * Gets the size a compressed block can grow to in the worst case.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses a block.
+     *
+     * @return The number of bytes written to {@code dst}.
+     */
+    static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int[] hashTable) {
+        int end = srcOff + srcLen;
+        int anchor = srcOff;
+        int op = dstOff;
+
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            int matchLimit = end - LAST_LITERALS;
+            int mfLimit = end - MF_LIMIT;
+            int ip = srcOff;
+
+            while (ip < mfLimit) {
+                int sequence = readIntLE(src, ip);
+                int hash = hash(sequence);
+                int ref = hashTable[hash];
+                hashTable[hash] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readIntLE(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                    matchLength++;
+                }
+
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+                ip += matchLength;
+                anchor = ip;
+                if (ip < mfLimit) {
+                    hashTable[hash(readIntLE(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+
+        return writeLastLiterals(src, anchor, end - anchor, dst, op) - dstOff;
+    }
+
+    /**
+     * Decompresses a block whose decompressed size is known.
+     *
+     * @throws IOException If the block is malformed or does not decompress to exactly {@code dstLen} bytes.
+     */
+    static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+        int ip = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int op = dstOff;
+        int dstEnd = dstOff + dstLen;
+
+        while (true) {
+            if (ip >= srcEnd) {
+                throw malformed();
+            }
+            int token = src[ip++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw malformed();
+                    }
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (literalLength > srcEnd - ip || literalLength > dstEnd - op) {
+                throw malformed();
+            }
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+
+            if (ip == srcEnd) {
+                if (op != dstEnd) {
+                    throw malformed();
+                }
+                return;
+            }
+
+            if (srcEnd - ip < 2) {
+                throw malformed();
+            }
+            int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+            if (offset == 0 || offset > op - dstOff) {
+                throw malformed();
+            }
+
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw malformed();
+                    }
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dstEnd - op) {
+                throw malformed();
+            }
+
+            int ref = op - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                for (int index = 0; index < matchLength; index++) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+    }
+
+    static int readIntLE(byte[] buf, int off) {
+        return (buf[off] & 0xFF) | (buf[off + 1] & 0xFF) << 8 | (buf[off + 2] & 0xFF) << 16 | (buf[off + 3] & 0xFF) << 24;
+    }
+
+    static void writeIntLE(byte[] buf, int off, int value) {
+        buf[off] = (byte) value;
+        buf[off + 1] = (byte) (value >>> 8);
+        buf[off + 2] = (byte) (value >>> 16);
+        buf[off + 3] = (byte) (value >>> 24);
+    }
+
+    static int[] newHashTable() {
+        return new int[1 << HASH_LOG];
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLength, int offset, int matchLength, byte[] dst, int op) {
+        int tokenPos = op++;
+        int token = Math.min(literalLength, 15) << 4;
+        if (literalLength >= 15) {
+            op = writeLength(literalLength - 15, dst, op);
+        }
+        System.arraycopy(src, literalOff, dst, op, literalLength);
+        op += literalLength;
+
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+
+        int extraMatch = matchLength - MIN_MATCH;
+        token |= Math.min(extraMatch, 15);
+        if (extraMatch >= 15) {
+            op = writeLength(extraMatch - 15, dst, op);
+        }
+        dst[tokenPos] = (byte) token;
+        return op;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalOff, int literalLength, byte[] dst, int op) {
+        dst[op++] = (byte) (Math.min(literalLength, 15) << 4);
+        if (literalLength >= 15) {
+            op = writeLength(literalLength - 15, dst, op);
+        }
+        System.arraycopy(src, literalOff, dst, op, literalLength);
+        return op + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int op) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static IOException malformed() {
+        return new IOException("Malformed LZ4 block");
+    }
+}
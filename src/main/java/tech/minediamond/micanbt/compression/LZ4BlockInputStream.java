@@ -0,0 +1,140 @@
+package tech.minediamond.micanbt.compression;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses data written by {@link LZ4BlockOutputStream} or lz4-java's {@code LZ4BlockOutputStream}.
+ * Reading stops at the first empty block.
+ */
+class LZ4BlockInputStream extends FilterInputStream {
+    private final byte[] header = new byte[LZ4BlockOutputStream.HEADER_LENGTH];
+    private byte[] buffer = new byte[0];
+    private byte[] compressed = new byte[0];
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    LZ4BlockInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.position == this.limit && !this.refill()) {
+            return -1;
+        }
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (this.position == this.limit && !this.refill()) {
+            return -1;
+        }
+
+        int count = Math.min(len, this.limit - this.position);
+        System.arraycopy(this.buffer, this.position, b, off, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0 || (this.position == this.limit && !this.refill())) {
+            return 0;
+        }
+
+        int count = (int) Math.min(n, this.limit - this.position);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.limit - this.position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private boolean refill() throws IOException {
+        while (!this.finished) {
+            this.readFully(this.header, this.header.length);
+            if (!LZ4BlockOutputStream.hasMagic(this.header)) {
+                throw new IOException("Stream is not LZ4 block compressed");
+            }
+
+            int token = this.header[LZ4BlockOutputStream.MAGIC.length] & 0xFF;
+            int method = token & 0xF0;
+            int blockSize = 1 << (LZ4BlockOutputStream.MIN_BLOCK_LEVEL + (token & 0x0F));
+            int compressedLength = LZ4.readIntLE(this.header, LZ4BlockOutputStream.MAGIC.length + 1);
+            int originalLength = LZ4.readIntLE(this.header, LZ4BlockOutputStream.MAGIC.length + 5);
+            int checksum = LZ4.readIntLE(this.header, LZ4BlockOutputStream.MAGIC.length + 9);
+            if ((method != LZ4BlockOutputStream.METHOD_RAW && method != LZ4BlockOutputStream.METHOD_LZ4)
+                    || originalLength < 0 || originalLength > blockSize
+                    || compressedLength < 0 || compressedLength > LZ4.maxCompressedLength(blockSize)
+                    || (method == LZ4BlockOutputStream.METHOD_RAW && compressedLength != originalLength)) {
+                throw new IOException("Malformed LZ4 block header");
+            }
+
+            if (originalLength == 0) {
+                if (compressedLength != 0 || checksum != 0) {
+                    throw new IOException("Malformed LZ4 end block");
+                }
+                this.finished = true;
+                return false;
+            }
+
+            if (this.buffer.length < originalLength) {
+                this.buffer = new byte[Math.max(originalLength, Math.min(blockSize, this.buffer.length * 2))];
+            }
+            if (method == LZ4BlockOutputStream.METHOD_RAW) {
+                this.readFully(this.buffer, originalLength);
+            } else {
+                if (this.compressed.length < compressedLength) {
+                    this.compressed = new byte[compressedLength];
+                }
+                this.readFully(this.compressed, compressedLength);
+                LZ4.decompress(this.compressed, 0, compressedLength, this.buffer, 0, originalLength);
+            }
+
+            int actual = XXHash32.hash(this.buffer, 0, originalLength, LZ4BlockOutputStream.CHECKSUM_SEED)
+                    & LZ4BlockOutputStream.CHECKSUM_MASK;
+            if (actual != checksum) {
+                throw new IOException("LZ4 block checksum mismatch");
+            }
+
+            this.position = 0;
+            this.limit = originalLength;
+            return true;
+        }
+        return false;
+    }
+
+    private void readFully(byte[] b, int len) throws IOException {
+        int read;
+        for (int pos = 0; pos < len; pos += read) {
+            read = this.in.read(b, pos, len - pos);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream");
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package tech.minediamond.micanbt.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses data into LZ4 blocks using the framing of lz4-java's {@code LZ4BlockOutputStream}.
+ * <p>
+ * Every block starts with a 21-byte header: the magic {@code "LZ4Block"}, a token holding the compression method
+ * and block size, the compressed length, the original length and an xxHash32 checksum of the original data.
+ * The stream is terminated by an empty block.
+ */
+class LZ4BlockOutputStream extends FilterOutputStream {
+    static final byte[] MAGIC = {'L', 'Z', '4', 'B', 'l', 'o', 'c', 'k'};
+    static final int HEADER_LENGTH = MAGIC.length + 1 + 4 + 4 + 4;
+    static final int METHOD_RAW = 0x10;
+    static final int METHOD_LZ4 = 0x20;
+    static final int CHECKSUM_SEED = 0x9747b28c;
+    static final int CHECKSUM_MASK = 0xFFFFFFF;
+    static final int MIN_BLOCK_LEVEL = 10;
+
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[HEADER_LENGTH + LZ4.maxCompressedLength(BLOCK_SIZE)];
+    private final int[] hashTable = LZ4.newHashTable();
+    private final int level = Integer.numberOfTrailingZeros(BLOCK_SIZE) - MIN_BLOCK_LEVEL;
+    private int count;
+    private boolean finished;
+
+    LZ4BlockOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    static boolean hasMagic(byte[] header) {
+        for (int index = 0; index < MAGIC.length; index++) {
+            if (header[index] != MAGIC[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.ensureOpen();
+        if (this.count == this.buffer.length) {
+            this.flushBlock();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.ensureOpen();
+        while (len > 0) {
+            if (this.count == this.buffer.length) {
+                this.flushBlock();
+            }
+            int chunk = Math.min(len, this.buffer.length - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, chunk);
+            this.count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Writes the pending block and the end marker without closing the underlying stream.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        this.flushBlock();
+        System.arraycopy(MAGIC, 0, this.compressed, 0, MAGIC.length);
+        this.compressed[MAGIC.length] = (byte) (METHOD_RAW | this.level);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 1, 0);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 5, 0);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 9, 0);
+        this.out.write(this.compressed, 0, HEADER_LENGTH);
+        this.finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.finish();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (this.count == 0) {
+            return;
+        }
+
+        int checksum = XXHash32.hash(this.buffer, 0, this.count, CHECKSUM_SEED) & CHECKSUM_MASK;
+        int compressedLength = LZ4.compress(this.buffer, 0, this.count, this.compressed, HEADER_LENGTH, this.hashTable);
+        int method = METHOD_LZ4;
+        if (compressedLength >= this.count) {
+            method = METHOD_RAW;
+            compressedLength = this.count;
+            System.arraycopy(this.buffer, 0, this.compressed, HEADER_LENGTH, this.count);
+        }
+
+        System.arraycopy(MAGIC, 0, this.compressed, 0, MAGIC.length);
+        this.compressed[MAGIC.length] = (byte) (method | this.level);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 1, compressedLength);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 5, this.count);
+        LZ4.writeIntLE(this.compressed, MAGIC.length + 9, checksum);
+        this.out.write(this.compressed, 0, HEADER_LENGTH + compressedLength);
+        this.count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.finished) {
+            throw new IOException("This stream is already finished");
+        }
+    }
+}
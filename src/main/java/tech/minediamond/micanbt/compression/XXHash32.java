@@ -0,0 +1,63 @@
+package tech.minediamond.micanbt.compression;
+
+/**
+ * The 32-bit xxHash function, used for the block checksums of the LZ4 framing.
+ */
+final class XXHash32 {
+    private static final int PRIME1 = 0x9E3779B1;
+    private static final int PRIME2 = 0x85EBCA77;
+    private static final int PRIME3 = 0xC2B2AE3D;
+    private static final int PRIME4 = 0x27D4EB2F;
+    private static final int PRIME5 = 0x165667B1;
+
+    private XXHash32() {
+    }
+
+    static int hash(byte[] buf, int off, int len, int seed) {
+        int end = off + len;
+        int h;
+
+        if (len >= 16) {
+            int v1 = seed + PRIME1 + PRIME2;
+            int v2 = seed + PRIME2;
+            int v3 = seed;
+            int v4 = seed - PRIME1;
+            int limit = end - 16;
+            do {
+                v1 = round(v1, LZ4.readIntLE(buf, off));
+                v2 = round(v2, LZ4.readIntLE(buf, off + 4));
+                v3 = round(v3, LZ4.readIntLE(buf, off + 8));
+                v4 = round(v4, LZ4.readIntLE(buf, off + 12));
+                off += 16;
+            } while (off <= limit);
+            h = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+        } else {
+            h = seed + PRIME5;
+        }
+
+        h += len;
+        while (off <= end - 4) {
+            h += LZ4.readIntLE(buf, off) * PRIME3;
+            h = Integer.rotateLeft(h, 17) * PRIME4;
+            off += 4;
+        }
+        while (off < end) {
+            h += (buf[off] & 0xFF) * PRIME5;
+            h = Integer.rotateLeft(h, 11) * PRIME1;
+            off++;
+        }
+
+        h ^= h >>> 15;
+        h *= PRIME2;
+        h ^= h >>> 13;
+        h *= PRIME3;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int round(int acc, int input) {
+        acc += input * PRIME2;
+        acc = Integer.rotateLeft(acc, 13);
+        return acc * PRIME1;
+    }
+}
@@ -0,0 +1,142 @@
+package tech.minediamond.micanbt.region;
+
+import tech.minediamond.micanbt.NBT.ByteBufferInputStream;
+import tech.minediamond.micanbt.NBT.NBTReader;
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.tag.CompoundTag;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads chunks from an Anvil region file ({@code .mca}) by their coordinates.
+ * <p>
+ * The file is memory-mapped once when the reader is opened. Looking up a chunk only touches its
+ * location table entry and its own sectors, so the rest of the region is never read.
+ * Chunk coordinates may be absolute or local to the region, only their lowest 5 bits are used.
+ * Chunks compressed with gzip, zlib, LZ4 or stored uncompressed are supported.
+ */
+public class RegionFileReader implements Closeable {
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Opens and maps the region file at the given path.
+     *
+     * @param path Path of the region file.
+     * @throws IOException If the file cannot be opened or is not a region file.
+     */
+    public RegionFileReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size == 0) {
+                this.buffer = ByteBuffer.allocate(RegionFormat.HEADER_SIZE);
+            } else if (size < RegionFormat.HEADER_SIZE) {
+                throw new IOException("Region file is too small: " + size + " bytes");
+            } else if (size > Integer.MAX_VALUE) {
+                throw new IOException("Region file is too large: " + size + " bytes");
+            } else {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the path of this region file.
+     *
+     * @return The path of this region file.
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Checks whether the region contains the chunk at the given coordinates.
+     *
+     * @param x Chunk x coordinate.
+     * @param z Chunk z coordinate.
+     * @return Whether the chunk is present.
+     */
+    public boolean hasChunk(int x, int z) {
+        return this.getLocation(x, z) != 0;
+    }
+
+    /**
+     * Gets the last modification time of the chunk at the given coordinates.
+     *
+     * @param x Chunk x coordinate.
+     * @param z Chunk z coordinate.
+     * @return The timestamp in epoch seconds, or 0 if the chunk is not present.
+     */
+    public int getTimestamp(int x, int z) {
+        return this.buffer.getInt(RegionFormat.SECTOR_SIZE + RegionFormat.index(x, z) * 4);
+    }
+
+    /**
+     * Reads the chunk at the given coordinates.
+     *
+     * @param x Chunk x coordinate.
+     * @param z Chunk z coordinate.
+     * @return The root tag of the chunk, or null if the chunk is not present.
+     * @throws IOException If the chunk data is corrupted or cannot be decompressed.
+     */
+    public CompoundTag readChunk(int x, int z) throws IOException {
+        int location = this.getLocation(x, z);
+        if (location == 0) {
+            return null;
+        }
+
+        long start = (long) RegionFormat.sectorOffset(location) * RegionFormat.SECTOR_SIZE;
+        long end = start + (long) RegionFormat.sectorCount(location) * RegionFormat.SECTOR_SIZE;
+        if (start < RegionFormat.HEADER_SIZE || start + RegionFormat.CHUNK_HEADER_SIZE > this.buffer.capacity()) {
+            throw new IOException("Chunk (" + x + ", " + z + ") points outside of the region file");
+        }
+
+        int length = this.buffer.getInt((int) start);
+        int compression = this.buffer.get((int) start + 4) & 0xFF;
+        if (length <= 0 || start + 4 + length > Math.min(end, this.buffer.capacity())) {
+            throw new IOException("Chunk (" + x + ", " + z + ") has an invalid length: " + length);
+        }
+
+        if ((compression & RegionFormat.EXTERNAL_FLAG) != 0) {
+            Path external = RegionFormat.externalChunkPath(this.path, x, z);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(external))) {
+                return readPayload(in, compression & ~RegionFormat.EXTERNAL_FLAG);
+            }
+        }
+
+        ByteBuffer payload = this.buffer.duplicate();
+        payload.position((int) start + RegionFormat.CHUNK_HEADER_SIZE);
+        payload.limit((int) start + 4 + length);
+        return readPayload(new ByteBufferInputStream(payload), compression);
+    }
+
+    private int getLocation(int x, int z) {
+        return this.buffer.getInt(RegionFormat.index(x, z) * 4);
+    }
+
+    private static CompoundTag readPayload(InputStream in, int compression) throws IOException {
+        Compression codec = RegionFormat.compressionOf(compression);
+        try (InputStream input = codec == Compression.NONE ? in : new BufferedInputStream(codec.decompress(in))) {
+            return NBTReader.read(input, false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
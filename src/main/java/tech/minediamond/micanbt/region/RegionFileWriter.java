@@ -0,0 +1,277 @@
+package tech.minediamond.micanbt.region;
+
+import tech.minediamond.micanbt.NBT.NBTWriter;
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.tag.CompoundTag;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Writes single chunks into an Anvil region file ({@code .mca}) without rewriting the rest of the region.
+ * <p>
+ * The writer keeps the location and timestamp tables in memory together with a map of the used sectors.
+ * A chunk is written into the first run of free sectors that is large enough (or appended to the end of the file),
+ * then its location and timestamp entries are updated in place. A chunk is never written over the sectors of its
+ * previous version, and the sectors of replaced or deleted chunks are only reused after {@link #flush()} has forced
+ * the new header entries to the storage device. Until then the header on the device may still point to them, so writing
+ * other chunks does not overwrite data it refers to. Writes are not forced on their own, so an interrupted write may
+ * lose the chunks written since the last flush.
+ * Chunks larger than 255 sectors are stored in an external {@code c.<x>.<z>.mcc} file, like the game does. That file
+ * is replaced in place and is not covered by the above.
+ */
+public class RegionFileWriter implements Closeable {
+    private static final int MAX_SECTOR_COUNT = 255;
+
+    private final Path path;
+    private final Compression compression;
+    private final FileChannel channel;
+    private final int[] locations = new int[RegionFormat.CHUNKS_PER_REGION];
+    private final int[] timestamps = new int[RegionFormat.CHUNKS_PER_REGION];
+    private final BitSet usedSectors = new BitSet();
+    /**
+     * Sectors that are no longer used by the header in memory, but still in use until the next flush.
+     */
+    private final BitSet releasedSectors = new BitSet();
+
+    /**
+     * Opens the region file at the given path for writing zlib compressed chunks, creating it if it does not exist.
+     *
+     * @param path Path of the region file.
+     * @throws IOException If the file cannot be opened or its header is corrupted.
+     */
+    public RegionFileWriter(Path path) throws IOException {
+        this(path, Compression.ZLIB);
+    }
+
+    /**
+     * Opens the region file at the given path for writing, creating it if it does not exist.
+     *
+     * @param path        Path of the region file.
+     * @param compression Compression used for the chunks written by this writer.
+     * @throws IOException If the file cannot be opened or its header is corrupted.
+     */
+    public RegionFileWriter(Path path, Compression compression) throws IOException {
+        Path parent = path.getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        this.path = path;
+        this.compression = compression;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            this.loadHeader();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private void loadHeader() throws IOException {
+        this.usedSectors.set(0, 2);
+
+        long size = this.channel.size();
+        if (size == 0) {
+            this.channel.write(ByteBuffer.allocate(RegionFormat.HEADER_SIZE), 0);
+            return;
+        }
+        if (size < RegionFormat.HEADER_SIZE) {
+            throw new IOException("Region file is too small: " + size + " bytes");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(RegionFormat.HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        header.asIntBuffer().get(this.locations).get(this.timestamps);
+
+        long sectorsInFile = (size + RegionFormat.SECTOR_SIZE - 1) / RegionFormat.SECTOR_SIZE;
+        for (int index = 0; index < RegionFormat.CHUNKS_PER_REGION; index++) {
+            int location = this.locations[index];
+            if (location == 0) {
+                continue;
+            }
+
+            int offset = RegionFormat.sectorOffset(location);
+            int count = RegionFormat.sectorCount(location);
+            if (offset < 2 || count == 0 || offset + count > sectorsInFile) {
+                // Drop entries pointing into the header or past the end of the file, the game does the same.
+                this.locations[index] = 0;
+                continue;
+            }
+            this.usedSectors.set(offset, offset + count);
+        }
+    }
+
+    /**
+     * Gets the path of this region file.
+     *
+     * @return The path of this region file.
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Writes the chunk at the given coordinates, stamped with the current time.
+     *
+     * @param x     Chunk x coordinate.
+     * @param z     Chunk z coordinate.
+     * @param chunk Root tag of the chunk.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeChunk(int x, int z, CompoundTag chunk) throws IOException {
+        this.writeChunk(x, z, chunk, (int) (System.currentTimeMillis() / 1000L));
+    }
+
+    /**
+     * Writes the chunk at the given coordinates, replacing the previous version of the chunk.
+     *
+     * @param x         Chunk x coordinate.
+     * @param z         Chunk z coordinate.
+     * @param chunk     Root tag of the chunk.
+     * @param timestamp Modification time in epoch seconds.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeChunk(int x, int z, CompoundTag chunk, int timestamp) throws IOException {
+        byte[] data = this.compress(chunk);
+        int index = RegionFormat.index(x, z);
+        Path external = RegionFormat.externalChunkPath(this.path, x, z);
+
+        int compression = RegionFormat.typeOf(this.compression);
+        int sectors = sectorsFor(data.length);
+        if (sectors > MAX_SECTOR_COUNT) {
+            Files.write(external, data);
+            compression |= RegionFormat.EXTERNAL_FLAG;
+            data = new byte[0];
+            sectors = 1;
+        }
+
+        int offset = this.allocate(sectors);
+        ByteBuffer payload = ByteBuffer.allocate(sectors * RegionFormat.SECTOR_SIZE);
+        payload.putInt(data.length + 1).put((byte) compression).put(data);
+        payload.clear();
+        this.writeFully(payload, (long) offset * RegionFormat.SECTOR_SIZE);
+
+        int previous = this.locations[index];
+        this.updateHeader(index, offset << 8 | sectors, timestamp);
+        this.release(previous);
+
+        if ((compression & RegionFormat.EXTERNAL_FLAG) == 0) {
+            Files.deleteIfExists(external);
+        }
+    }
+
+    /**
+     * Removes the chunk at the given coordinates from the region.
+     *
+     * @param x Chunk x coordinate.
+     * @param z Chunk z coordinate.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void deleteChunk(int x, int z) throws IOException {
+        int index = RegionFormat.index(x, z);
+        int previous = this.locations[index];
+        if (previous == 0) {
+            return;
+        }
+
+        this.updateHeader(index, 0, 0);
+        this.release(previous);
+        Files.deleteIfExists(RegionFormat.externalChunkPath(this.path, x, z));
+    }
+
+    /**
+     * Checks whether the region contains the chunk at the given coordinates.
+     *
+     * @param x Chunk x coordinate.
+     * @param z Chunk z coordinate.
+     * @return Whether the chunk is present.
+     */
+    public boolean hasChunk(int x, int z) {
+        return this.locations[RegionFormat.index(x, z)] != 0;
+    }
+
+    /**
+     * Forces all written chunks to the storage device, after which the sectors of replaced and deleted chunks are
+     * reused.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        this.channel.force(true);
+        this.usedSectors.andNot(this.releasedSectors);
+        this.releasedSectors.clear();
+    }
+
+    private int allocate(int sectors) {
+        int start = this.usedSectors.nextClearBit(2);
+        while (true) {
+            int end = this.usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= sectors) {
+                this.usedSectors.set(start, start + sectors);
+                return start;
+            }
+            start = this.usedSectors.nextClearBit(end);
+        }
+    }
+
+    private void release(int location) {
+        if (location != 0) {
+            int offset = RegionFormat.sectorOffset(location);
+            this.releasedSectors.set(offset, offset + RegionFormat.sectorCount(location));
+        }
+    }
+
+    private void updateHeader(int index, int location, int timestamp) throws IOException {
+        this.locations[index] = location;
+        this.timestamps[index] = timestamp;
+
+        ByteBuffer entry = ByteBuffer.allocate(4);
+        entry.putInt(0, location);
+        this.writeFully(entry, index * 4L);
+        entry.clear();
+        entry.putInt(0, timestamp);
+        this.writeFully(entry, RegionFormat.SECTOR_SIZE + index * 4L);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of region file");
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int sectorsFor(int dataLength) {
+        return (dataLength + RegionFormat.CHUNK_HEADER_SIZE + RegionFormat.SECTOR_SIZE - 1) / RegionFormat.SECTOR_SIZE;
+    }
+
+    private byte[] compress(CompoundTag chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RegionFormat.SECTOR_SIZE);
+        try (OutputStream out = new BufferedOutputStream(this.compression.compress(bytes))) {
+            NBTWriter.writeTag(out, chunk);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
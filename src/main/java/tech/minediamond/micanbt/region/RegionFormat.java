@@ -0,0 +1,78 @@
+package tech.minediamond.micanbt.region;
+
+import tech.minediamond.micanbt.compression.Compression;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Constants and helpers describing the Anvil region file layout.
+ * <p>
+ * A region file starts with two 4 KiB tables of 1024 big-endian ints each: the location table
+ * ({@code offset << 8 | sectorCount}, both in 4 KiB sectors) and the timestamp table.
+ * Every chunk payload starts with a 4-byte length, followed by a compression type byte and the compressed NBT.
+ */
+final class RegionFormat {
+    static final int SECTOR_SIZE = 4096;
+    static final int CHUNKS_PER_REGION = 1024;
+    static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+    static final int CHUNK_HEADER_SIZE = 5;
+
+    static final int COMPRESSION_GZIP = 1;
+    static final int COMPRESSION_ZLIB = 2;
+    static final int COMPRESSION_NONE = 3;
+    static final int COMPRESSION_LZ4 = 4;
+    static final int EXTERNAL_FLAG = 128;
+
+    private RegionFormat() {
+    }
+
+    static int index(int x, int z) {
+        return (x & 31) + (z & 31) * 32;
+    }
+
+    static int sectorOffset(int location) {
+        return location >>> 8;
+    }
+
+    static int sectorCount(int location) {
+        return location & 0xFF;
+    }
+
+    static Compression compressionOf(int type) throws IOException {
+        return switch (type) {
+            case COMPRESSION_GZIP -> Compression.GZIP;
+            case COMPRESSION_ZLIB -> Compression.ZLIB;
+            case COMPRESSION_NONE -> Compression.NONE;
+            case COMPRESSION_LZ4 -> Compression.LZ4;
+            default -> throw new IOException("Unsupported chunk compression type: " + type);
+        };
+    }
+
+    static int typeOf(Compression compression) {
+        return switch (compression) {
+            case GZIP -> COMPRESSION_GZIP;
+            case ZLIB -> COMPRESSION_ZLIB;
+            case NONE -> COMPRESSION_NONE;
+            case LZ4 -> COMPRESSION_LZ4;
+        };
+    }
+
+    /**
+     * Resolves the {@code c.<x>.<z>.mcc} file used for chunks that were too large to fit into the region.
+     * The region coordinates are taken from the {@code r.<x>.<z>.mca} file name when possible.
+     */
+    static Path externalChunkPath(Path regionPath, int x, int z) {
+        int chunkX = x;
+        int chunkZ = z;
+        String[] parts = regionPath.getFileName().toString().split("\\.");
+        if (parts.length == 4 && parts[0].equals("r")) {
+            try {
+                chunkX = Integer.parseInt(parts[1]) * 32 + (x & 31);
+                chunkZ = Integer.parseInt(parts[2]) * 32 + (z & 31);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return regionPath.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+    }
+}
@@ -1,5 +1,8 @@
 package tech.minediamond.micanbt.tag;
 
+import tech.minediamond.micanbt.NBT.NBTReader;
+import tech.minediamond.micanbt.NBT.NBTWriter;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
@@ -91,16 +94,19 @@ public class ByteArrayTag extends Tag {
 
     @Override
     public void read(DataInput in) throws IOException {
-        this.value = new byte[in.readInt()];
-        in.readFully(this.value);
+        this.value = NBTReader.readByteArray(in);
     }
 
     @Override
     public void write(DataOutput out) throws IOException {
-        out.writeInt(this.value.length);
-        out.write(this.value);
+        NBTWriter.writeByteArray(out, this.value);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The array is always copied, so the copy never shares it with this tag.
+     */
     @Override
     public ByteArrayTag copy() {
         return new ByteArrayTag(this.getName(), this.getClonedValue());
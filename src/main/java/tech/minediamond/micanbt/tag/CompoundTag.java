@@ -7,6 +7,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -15,7 +16,17 @@ import java.util.Map.Entry;
  */
 public class CompoundTag extends Tag implements Iterable<Tag> {
     public static final int ID = 10;
-    private Map<String, Tag> value;
+    private TagMap value;
+    private LazyPayload lazy;
+    /**
+     * Whether the map itself has been handed out by {@link #getRawValue()}, so copies cannot share it or its tags.
+     */
+    private boolean escaped;
+    /**
+     * The number of tags in the map that may be referenced outside of this tag, see {@link Tag#handedOut}, or -1 if
+     * they have to be counted again.
+     */
+    private int handedOut;
 
     /**
      * Creates a tag with the specified name.
@@ -23,7 +34,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @param name The name of the tag.
      */
     public CompoundTag(String name) {
-        this(name, new LinkedHashMap<>());
+        this(name, new TagMap());
     }
 
     /**
@@ -33,22 +44,126 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @param value The value of the tag.
      */
     public CompoundTag(String name, Map<String, Tag> value) {
+        this(name);
+        this.setValue(value);
+    }
+
+    private CompoundTag(String name, TagMap value) {
         super(name);
-        this.value = new LinkedHashMap<>(value);
+        this.value = value;
+    }
+
+    /**
+     * Creates a lazy tag whose entries are decoded from the payload on first access.
+     *
+     * @param name    The name of the tag.
+     * @param payload The encoded payload of the tag.
+     * @see LazyPayload
+     */
+    public CompoundTag(String name, LazyPayload payload) {
+        this(name);
+        this.lazy = payload;
+    }
+
+    /**
+     * Checks whether the entries of this tag have not been decoded yet.
+     *
+     * @return Whether this tag is still lazy.
+     */
+    public boolean isLazy() {
+        return this.lazy != null;
+    }
+
+    private TagMap value() {
+        LazyPayload payload = this.lazy;
+        if (payload != null) {
+            // Entries are put through this tag while decoding, so it must not be lazy anymore by then.
+            this.lazy = null;
+            boolean decoded = false;
+            try {
+                payload.decodeInto(this);
+                decoded = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode lazy compound tag " + this.getName(), e);
+            } finally {
+                if (!decoded) {
+                    // Drops the entries decoded so far, so the tag stays lazy and fails the same way next time.
+                    this.value = new TagMap();
+                    this.handedOut = 0;
+                    this.lazy = payload;
+                }
+            }
+        }
+        return this.value;
+    }
+
+    /**
+     * Gets the map to change it, after replacing it with copies of its tags if it is shared. Tags that have been handed
+     * out stay in place, since copies never share them.
+     */
+    private TagMap owned() {
+        TagMap value = this.value();
+        if (value.isShared()) {
+            value = new TagMap(value, tag -> tag.handedOut ? tag : tag.copy());
+            this.value = value;
+        }
+        if (this.handedOut < 0) {
+            this.handedOut = countHandedOut(value);
+        }
+        return value;
+    }
+
+    /**
+     * Marks a tag of the map as handed out.
+     */
+    private Tag handOut(Tag tag) {
+        if (tag != null && !tag.handedOut) {
+            tag.handedOut = true;
+            if (this.handedOut >= 0) {
+                this.handedOut++;
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * Accounts for a tag put into the map.
+     */
+    private void added(Tag tag) {
+        if (tag.handedOut && this.handedOut >= 0) {
+            this.handedOut++;
+        }
+    }
+
+    /**
+     * Accounts for a tag removed from the map.
+     */
+    private Tag removed(Tag tag) {
+        if (tag != null && tag.handedOut && this.handedOut > 0) {
+            this.handedOut--;
+        }
+        return tag;
+    }
+
+    private static int countHandedOut(TagMap value) {
+        int count = 0;
+        for (Tag tag : value.values()) {
+            if (tag.handedOut) {
+                count++;
+            }
+        }
+        return count;
     }
 
     @Override
     public Map<String, Tag> getClonedValue() {
-        Map<String, Tag> clonedMap = new LinkedHashMap<>(Math.max((int) (this.value.size() / .75f) + 1, 16));
-        for (Map.Entry<String, Tag> entry : this.value.entrySet()) {
-            clonedMap.put(entry.getKey(), entry.getValue().copy());
-        }
-        return clonedMap;
+        return new TagMap(this.value(), Tag::copy);
     }
 
     @Override
     public Map<String, Tag> getRawValue() {
-        return this.value;
+        this.escaped = true;
+        return this.owned();
     }
 
     /**
@@ -57,7 +172,14 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @param value New value of this tag.
      */
     public void setValue(Map<String, Tag> value) {
-        this.value = new LinkedHashMap<>(value);
+        this.lazy = null;
+        this.value = new TagMap(value);
+        this.escaped = false;
+        this.handedOut = 0;
+        for (Tag tag : this.value.values()) {
+            tag.handedOut = true;
+            this.handedOut++;
+        }
     }
 
     @Override
@@ -71,7 +193,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return Whether the compound tag is empty.
      */
     public boolean isEmpty() {
-        return this.value.isEmpty();
+        return this.value().isEmpty();
     }
 
     /**
@@ -81,7 +203,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return Whether the compound tag contains a tag with the specified name.
      */
     public boolean contains(String tagName) {
-        return this.value.containsKey(tagName);
+        return this.value().containsKey(tagName);
     }
 
     /**
@@ -91,7 +213,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return The tag with the specified name.
      */
     public Tag get(String tagName) {
-        return this.value.get(tagName);
+        return this.handOut(this.owned().get(tagName));
     }
 
     /**
@@ -102,7 +224,23 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * The returned tag may be of a different type than the one being put.
      */
     public Tag put(Tag tag) {
-        return this.value.put(tag.getName(), tag);
+        TagMap value = this.owned();
+        tag.handedOut = true;
+        this.added(tag);
+        return this.removed(value.put(tag.getName(), tag));
+    }
+
+    /**
+     * Puts a tag that is not referenced anywhere else, such as a tag that was just created or read, into this compound
+     * tag. Unlike {@link #put(Tag)}, this lets copies of this compound tag share the tag until one of them changes it.
+     *
+     * @param tag Tag to put into this compound tag. It must only be accessed through this compound tag afterwards.
+     * @return The previous tag associated with its name, or null if there wasn't one.
+     */
+    public Tag putOwned(Tag tag) {
+        TagMap value = this.owned();
+        this.added(tag);
+        return this.removed(value.put(tag.getName(), tag));
     }
 
     /**
@@ -112,7 +250,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return The removed tag.
      */
     public Tag remove(String tagName) {
-        return this.value.remove(tagName);
+        return this.removed(this.owned().remove(tagName));
     }
 
     /**
@@ -121,7 +259,61 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return The compound tag's key set.
      */
     public Set<String> keySet() {
-        return this.value.keySet();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    String element(String key, Tag tag) {
+                        return key;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompoundTag.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return CompoundTag.this.value().containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return o instanceof String key && CompoundTag.this.contains(key) && CompoundTag.this.remove(key) != null;
+            }
+
+            @Override
+            public void clear() {
+                CompoundTag.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Gets the entries of this compound tag to change them in place, for example when decoding into it. Unlike
+     * {@link #getRawValue()}, this lets copies of this compound tag keep sharing its tags afterwards.
+     *
+     * @return The entries of this compound tag. The map and its tags must not be kept, and only be changed before this
+     * compound tag is accessed otherwise.
+     */
+    public Map<String, Tag> getOwnedValue() {
+        TagMap value = this.owned();
+        // Tags may be replaced or removed without accounting for them.
+        this.handedOut = -1;
+        return value;
+    }
+
+    /**
+     * Gets an unmodifiable view of the entries of this compound tag for reading them. Unlike {@link #getRawValue()},
+     * this lets copies of this compound tag keep sharing its tags.
+     *
+     * @return The entries of this compound tag. Their tags must not be changed or kept.
+     */
+    public Map<String, Tag> getReadOnlyValue() {
+        return Collections.unmodifiableMap(this.value());
     }
 
     /**
@@ -130,7 +322,27 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return This compound tag's tags.
      */
     public Collection<Tag> values() {
-        return this.value.values();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Tag> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    Tag element(String key, Tag tag) {
+                        return this.current() ? CompoundTag.this.handOut(tag) : CompoundTag.this.get(key);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompoundTag.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompoundTag.this.clear();
+            }
+        };
     }
 
     /**
@@ -139,14 +351,20 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
      * @return This compound tag's size.
      */
     public int size() {
-        return this.value.size();
+        return this.value().size();
     }
 
     /**
      * Clears all tags from this compound tag.
      */
     public void clear() {
-        this.value.clear();
+        this.lazy = null;
+        if (this.value.isShared()) {
+            this.value = new TagMap();
+        } else {
+            this.value.clear();
+        }
+        this.handedOut = 0;
     }
 
     @Override
@@ -156,6 +374,7 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
 
     @Override
     public void read(DataInput in) throws IOException {
+        this.lazy = null;
         List<Tag> tags = new ArrayList<Tag>();
         try {
             Tag tag;
@@ -167,36 +386,109 @@ public class CompoundTag extends Tag implements Iterable<Tag> {
         }
 
         for (Tag tag : tags) {
-            this.put(tag);
+            this.putOwned(tag);
         }
     }
 
     @Override
     public void write(DataOutput out) throws IOException {
-        for (Tag tag : this.value.values()) {
+        if (this.lazy != null && this.lazy.writeTo(out)) {
+            return;
+        }
+        for (Tag tag : this.value().values()) {
             NBTWriter.writeTag(out, tag);
         }
 
         out.writeByte(0);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the tags of this compound with this tag until either of the two is changed or hands out one of
+     * its tags, which then copies its other entries one level deep. Tags that may be referenced from outside, because
+     * they have been handed out by {@link #get(String)} or an iterator or were added by {@link #put(Tag)}, are copied
+     * right away instead, as are all tags once the map itself has been handed out by {@link #getRawValue()}. The copy
+     * does not hand out any tags, so copying it again takes constant time. Array tags are always copied along with the
+     * compound holding them.
+     * <p>
+     * Copying does not change this tag, so a compound tag that is not lazy can be copied and read, for example by
+     * {@link #equals(Object)}, {@link #write(DataOutput)} or {@link #getReadOnlyValue()}, from several threads at once.
+     */
     @Override
     public CompoundTag copy() {
-        Map<String, Tag> newMap = new LinkedHashMap<String, Tag>();
-        for (Entry<String, Tag> entry : this.value.entrySet()) {
-            newMap.put(entry.getKey(), entry.getValue().copy());
+        if (this.lazy != null) {
+            return new CompoundTag(this.getName(), this.lazy);
+        }
+        TagMap value = this.value;
+        if (this.escaped) {
+            return new CompoundTag(this.getName(), new TagMap(value, Tag::copy));
         }
+        int handedOut = this.handedOut < 0 ? countHandedOut(value) : this.handedOut;
+        value.share();
+        if (handedOut == 0) {
+            return new CompoundTag(this.getName(), value);
+        }
+        // The tags that are not handed out are shared by both maps.
+        TagMap copy = new TagMap(value, tag -> tag.handedOut ? tag.copy() : tag);
+        copy.share();
+        return new CompoundTag(this.getName(), copy);
+    }
 
-        return new CompoundTag(this.getName(), newMap);
+    /**
+     * Iterates over the entries of this compound tag, from the map it had when the iteration started. If the map has
+     * been shared or replaced since, tags are handed out and removed through this compound tag instead.
+     */
+    private abstract class EntryIterator<E> implements Iterator<E> {
+        private final TagMap map = CompoundTag.this.value();
+        private final Iterator<Entry<String, Tag>> entries = this.map.entrySet().iterator();
+        private String key;
+        private Tag tag;
+
+        abstract E element(String key, Tag tag);
+
+        /**
+         * Checks whether the map is still the map of this compound tag and can be changed.
+         */
+        boolean current() {
+            return CompoundTag.this.value == this.map && !this.map.isShared();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+            Entry<String, Tag> entry = this.entries.next();
+            this.key = entry.getKey();
+            this.tag = entry.getValue();
+            return this.element(this.key, this.tag);
+        }
+
+        @Override
+        public void remove() {
+            if (this.key == null) {
+                throw new IllegalStateException();
+            }
+            if (this.current()) {
+                this.entries.remove();
+                CompoundTag.this.removed(this.tag);
+            } else {
+                CompoundTag.this.remove(this.key);
+            }
+            this.key = null;
+        }
     }
 
     @Override
     public boolean equals(Object o) {
-        return super.equals(o) && value.equals(((CompoundTag) o).value);
+        return super.equals(o) && this.value().equals(((CompoundTag) o).value());
     }
 
     @Override
     public int hashCode() {
-        return 31 * super.hashCode() + Objects.hashCode(value);
+        return 31 * super.hashCode() + Objects.hashCode(this.value());
     }
 }
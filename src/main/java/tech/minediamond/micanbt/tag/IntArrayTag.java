@@ -1,5 +1,8 @@
 package tech.minediamond.micanbt.tag;
 
+import tech.minediamond.micanbt.NBT.NBTReader;
+import tech.minediamond.micanbt.NBT.NBTWriter;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
@@ -91,20 +94,19 @@ public class IntArrayTag extends Tag {
 
     @Override
     public void read(DataInput in) throws IOException {
-        this.value = new int[in.readInt()];
-        for (int index = 0; index < this.value.length; index++) {
-            this.value[index] = in.readInt();
-        }
+        this.value = NBTReader.readIntArray(in);
     }
 
     @Override
     public void write(DataOutput out) throws IOException {
-        out.writeInt(this.value.length);
-        for (int index = 0; index < this.value.length; index++) {
-            out.writeInt(this.value[index]);
-        }
+        NBTWriter.writeIntArray(out, this.value);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The array is always copied, so the copy never shares it with this tag.
+     */
     @Override
     public IntArrayTag copy() {
         return new IntArrayTag(this.getName(), this.getClonedValue());
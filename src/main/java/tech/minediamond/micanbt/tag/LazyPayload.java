@@ -0,0 +1,41 @@
+package tech.minediamond.micanbt.tag;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The still encoded payload of a lazily read {@link CompoundTag} or {@link ListTag}.
+ * <p>
+ * A lazy tag decodes its direct children from its payload the first time its contents are accessed,
+ * nested compounds and lists are again created lazily. Until then, copying the tag shares the payload and
+ * writing it in the format the payload is encoded in copies the encoded bytes verbatim.
+ *
+ * @see tech.minediamond.micanbt.NBT.NBTReader#readLazy(java.nio.ByteBuffer, tech.minediamond.micanbt.NBT.NBTFormat)
+ */
+public interface LazyPayload {
+
+    /**
+     * Decodes the entries of a compound payload into the given, empty compound.
+     *
+     * @param compound Compound to put the entries into.
+     * @throws IOException If the payload is malformed.
+     */
+    void decodeInto(CompoundTag compound) throws IOException;
+
+    /**
+     * Decodes the elements of a list payload into the given, empty list.
+     *
+     * @param list List to add the elements to.
+     * @throws IOException If the payload is malformed.
+     */
+    void decodeInto(ListTag<Tag> list) throws IOException;
+
+    /**
+     * Writes the encoded payload verbatim if the output uses the same format.
+     *
+     * @param out Stream to write to.
+     * @return Whether the payload was written. If {@code false}, nothing was written.
+     * @throws IOException If an I/O error occurs.
+     */
+    boolean writeTo(DataOutput out) throws IOException;
+}
@@ -1,14 +1,21 @@
 package tech.minediamond.micanbt.tag;
 
-import tech.minediamond.micanbt.NBT.TagCreateException;
-import tech.minediamond.micanbt.NBT.TagFactory;
+import tech.minediamond.micanbt.NBT.NBTReader;
+import tech.minediamond.micanbt.NBT.NBTWriter;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents an NBT List tag.
@@ -18,11 +25,28 @@ import java.util.stream.Stream;
  */
 public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
     public static final int ID = 9;
+    private static final int INITIAL_CAPACITY = 4;
     /**
      * The NBT Tag ID of the elements contained within this list. Defaults to 0 (TAG_End) for empty lists.
      */
     private int typeId = 0;
-    private final List<T> value;
+    private Elements<T> value;
+    /**
+     * The elements of an int, float or double list as an {@code int[]}, {@code float[]} or {@code double[]} holding
+     * {@link #count} values, or null while the elements are stored as tags in {@link #value}, which is null otherwise.
+     */
+    private Object primitives;
+    private int count;
+    private LazyPayload lazy;
+    /**
+     * Whether the list itself has been handed out by {@link #getRawValue()}, so copies cannot share it or its tags.
+     */
+    private boolean escaped;
+    /**
+     * The number of tags in the list that may be referenced outside of this tag, see {@link Tag#handedOut}, or -1 if
+     * they have to be counted again.
+     */
+    private int handedOut;
 
     /**
      * Creates an empty list tag with the specified name and no defined type.
@@ -33,7 +57,7 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
         super(name);
 
         this.typeId = 0;
-        this.value = new ArrayList<>();
+        this.value = new Elements<>();
     }
 
     /**
@@ -62,19 +86,210 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
         this.setValue(value);
     }
 
-    @Override
-    @SuppressWarnings("unchecked") // Safe cast: tag.copy() returns a Tag of the same concrete type
-    public List<T> getClonedValue() {
-        List<T> clonedList = new ArrayList<>(Math.max(this.value.size(), 10));
+    /**
+     * Creates a lazy ListTag whose elements are decoded from the payload on first access.
+     *
+     * @param name    The name of the tag.
+     * @param typeId  The NBT Tag ID of the elements in the payload.
+     * @param payload The encoded payload of the tag.
+     * @see LazyPayload
+     */
+    public ListTag(String name, int typeId, LazyPayload payload) {
+        this(name, typeId);
+        this.lazy = payload;
+    }
+
+    private ListTag(String name, int typeId, Elements<T> value) {
+        super(name);
+        this.typeId = typeId;
+        this.value = value;
+    }
+
+    private ListTag(String name, int typeId, Object primitives, int count) {
+        super(name);
+        this.typeId = typeId;
+        this.primitives = primitives;
+        this.count = count;
+    }
+
+    /**
+     * Checks whether the elements of this tag have not been decoded yet.
+     *
+     * @return Whether this tag is still lazy.
+     */
+    public boolean isLazy() {
+        return this.lazy != null;
+    }
+
+    @SuppressWarnings("unchecked") // Safe cast: the payload only adds tags of the element type
+    private void materialize() {
+        LazyPayload payload = this.lazy;
+        if (payload != null) {
+            // Elements are added through this tag while decoding, so it must not be lazy anymore by then.
+            this.lazy = null;
+            boolean decoded = false;
+            try {
+                payload.decodeInto((ListTag<Tag>) this);
+                decoded = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode lazy list tag " + this.getName(), e);
+            } finally {
+                if (!decoded) {
+                    // Drops the elements decoded so far, so the tag stays lazy and fails the same way next time.
+                    this.reset();
+                    this.lazy = payload;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the elements as tags, creating tags for primitive elements first.
+     */
+    private Elements<T> value() {
+        this.materialize();
+        if (this.primitives != null) {
+            this.value = this.primitiveElements();
+            this.primitives = null;
+            this.count = 0;
+        }
+        return this.value;
+    }
+
+    /**
+     * Gets the list to change it, after replacing it with copies of its tags if it is shared. Tags that have been
+     * handed out stay in place, since copies never share them.
+     */
+    private Elements<T> owned() {
+        Elements<T> value = this.value();
+        if (value.isShared()) {
+            value = mapElements(value, tag -> tag.handedOut ? tag : tag.copy());
+            this.value = value;
+        }
+        if (this.handedOut < 0) {
+            this.handedOut = countHandedOut(value);
+        }
+        return value;
+    }
+
+    /**
+     * Marks a tag of the list as handed out.
+     */
+    private T handOut(T tag) {
+        if (!tag.handedOut) {
+            tag.handedOut = true;
+            if (this.handedOut >= 0) {
+                this.handedOut++;
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * Accounts for a tag added to the list.
+     */
+    private void added(T tag) {
+        if (tag.handedOut && this.handedOut >= 0) {
+            this.handedOut++;
+        }
+    }
+
+    /**
+     * Accounts for a tag removed from the list.
+     */
+    private T removed(T tag) {
+        if (tag.handedOut && this.handedOut > 0) {
+            this.handedOut--;
+        }
+        return tag;
+    }
+
+    private static int countHandedOut(List<? extends Tag> value) {
+        int count = 0;
+        for (Tag tag : value) {
+            if (tag.handedOut) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates a list of the tags of another list mapped by a function, which returns a tag of the same type.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the function keeps the concrete type of the tags
+    private static <T extends Tag> Elements<T> mapElements(List<T> value, UnaryOperator<Tag> function) {
+        Elements<T> copy = new Elements<>(Math.max(value.size(), 10));
         for (T tag : value) {
-            clonedList.add((T) tag.copy());
+            copy.add((T) function.apply(tag));
         }
-        return clonedList;
+        return copy;
+    }
+
+    /**
+     * Replaces the list with an empty one that is not shared.
+     */
+    private void reset() {
+        this.lazy = null;
+        this.primitives = null;
+        this.count = 0;
+        if (this.value == null || this.value.isShared()) {
+            this.value = new Elements<>();
+        } else {
+            this.value.clear();
+        }
+        this.handedOut = 0;
+    }
+
+    @Override
+    public List<T> getClonedValue() {
+        this.materialize();
+        return this.primitives != null ? this.primitiveElements() : mapElements(this.value, Tag::copy);
     }
 
     @Override
     public List<T> getRawValue() {
-        return this.value;
+        this.escaped = true;
+        return this.owned();
+    }
+
+    /**
+     * Gets the elements of this list to change them in place, for example when decoding into it. Unlike
+     * {@link #getRawValue()}, this lets copies of this list keep sharing its tags afterwards.
+     *
+     * @return The elements of this list. The list and its tags must not be kept, and only be changed before this list
+     * is accessed otherwise.
+     */
+    public List<T> getOwnedValue() {
+        Elements<T> value = this.owned();
+        // Tags may be replaced or removed without accounting for them.
+        this.handedOut = -1;
+        return value;
+    }
+
+    /**
+     * Gets an unmodifiable view of the elements of this list for reading them. Unlike {@link #getRawValue()}, this
+     * lets copies of this list keep sharing its tags, and does not create tags for all int, float or double elements
+     * stored as primitives at once.
+     *
+     * @return The elements of this list. Their tags must not be changed or kept.
+     */
+    public List<T> getReadOnlyValue() {
+        this.materialize();
+        if (this.primitives == null) {
+            return Collections.unmodifiableList(this.value);
+        }
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return ListTag.this.element(Objects.checkIndex(index, ListTag.this.count));
+            }
+
+            @Override
+            public int size() {
+                return ListTag.this.count;
+            }
+        };
     }
 
     /**
@@ -84,11 +299,15 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @throws IllegalArgumentException If the tags in the list are not of the same type or a tag is null.
      */
     public void setValue(List<T> value) {
-        this.value.clear();
+        this.reset();
         for (T tag : value) {
             checkType(tag);
         }
+        for (T tag : value) {
+            tag.handedOut = true;
+        }
         this.value.addAll(value);
+        this.handedOut = this.value.size();
     }
 
     @Override
@@ -114,7 +333,22 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      */
     public void add(T tag) {
         checkType(tag);
-        this.value.add(tag);
+        this.owned().add(tag);
+        tag.handedOut = true;
+        this.added(tag);
+    }
+
+    /**
+     * Appends a tag that is not referenced anywhere else, such as a tag that was just created or read, to the end of
+     * this list. Unlike {@link #add(Tag)}, this lets copies of this list share the tag until one of them changes it.
+     *
+     * @param tag The tag to add. It must only be accessed through this list afterwards.
+     * @throws IllegalArgumentException If the tag's type does not match the list's element type.
+     */
+    public void addOwned(T tag) {
+        checkType(tag);
+        this.owned().add(tag);
+        this.added(tag);
     }
 
     /**
@@ -126,7 +360,9 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      */
     public void add(T tag, int index) {
         checkType(tag);
-        this.value.add(index, tag);
+        this.owned().add(index, tag);
+        tag.handedOut = true;
+        this.added(tag);
     }
 
     /**
@@ -139,7 +375,11 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
         for (T tag : tags) {
             checkType(tag);
         }
-        this.value.addAll(tags);
+        this.owned().addAll(tags);
+        for (T tag : tags) {
+            tag.handedOut = true;
+            this.added(tag);
+        }
     }
 
     /**
@@ -149,7 +389,12 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @return {@code true} if the list contained the specified element.
      */
     public boolean remove(T tag) {
-        return this.value.remove(tag);
+        int index = this.indexOf(tag);
+        if (index < 0) {
+            return false;
+        }
+        this.remove(index);
+        return true;
     }
 
     /**
@@ -159,7 +404,14 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @return The tag that was removed.
      */
     public T remove(int index) {
-        return this.value.remove(index);
+        this.materialize();
+        if (this.primitives != null) {
+            T removed = this.element(Objects.checkIndex(index, this.count));
+            System.arraycopy(this.primitives, index + 1, this.primitives, index, this.count - index - 1);
+            this.count--;
+            return removed;
+        }
+        return this.removed(this.owned().remove(index));
     }
 
     /**
@@ -170,7 +422,7 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @throws IndexOutOfBoundsException If the index is out of range.
      */
     public T get(int index) {
-        return this.value.get(index);
+        return this.handOut(this.owned().get(index));
     }
 
     /**
@@ -183,7 +435,10 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      */
     public T set(int index, T tag) {
         checkType(tag);
-        return value.set(index, tag);
+        T previous = this.owned().set(index, tag);
+        tag.handedOut = true;
+        this.added(tag);
+        return this.removed(previous);
     }
 
     /**
@@ -193,7 +448,7 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @return The index of the tag, or -1 if not found.
      */
     public int indexOf(T tag) {
-        return this.value.indexOf(tag);
+        return this.getReadOnlyValue().indexOf(tag);
     }
 
     /**
@@ -202,7 +457,8 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @return The size of the list.
      */
     public int size() {
-        return this.value.size();
+        this.materialize();
+        return this.primitives != null ? this.count : this.value.size();
     }
 
     /**
@@ -211,14 +467,14 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
      * @return {@code true} if the list contains no tags.
      */
     public boolean isEmpty() {
-        return value.isEmpty();
+        return this.size() == 0;
     }
 
     /**
      * Removes all tags from this list. Does not reset the element type ID.
      */
     public void clear() {
-        this.value.clear();
+        this.reset();
     }
 
     /**
@@ -231,19 +487,391 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
         if (tag != null && tag.getTagId() != this.typeId) {
             return false;
         }
-        return this.value.contains(tag);
+        return this.getReadOnlyValue().contains(tag);
     }
 
     @Override
     public Iterator<T> iterator() {
-        return this.value.iterator();
+        return new Iterator<>() {
+            private int cursor;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < ListTag.this.size();
+            }
+
+            @Override
+            public T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.last = this.cursor++;
+                return ListTag.this.get(this.last);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+                ListTag.this.remove(this.last);
+                this.cursor = this.last;
+                this.last = -1;
+            }
+        };
     }
 
     /**
      * Returns a sequential Stream with this list as its source.
      */
     public Stream<T> stream() {
-        return value.stream();
+        return StreamSupport.stream(Spliterators.spliterator(this.iterator(), this.size(), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Gets an element of an int list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @return The value of the element.
+     * @throws IllegalArgumentException  If this is not a list of int tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public int getInt(int index) {
+        Object primitives = this.primitives(IntTag.ID);
+        if (primitives != null) {
+            return ((int[]) primitives)[Objects.checkIndex(index, this.count)];
+        }
+        return ((IntTag) this.value.get(index)).getRawValue();
+    }
+
+    /**
+     * Sets an element of an int list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @param value New value of the element.
+     * @throws IllegalArgumentException  If this is not a list of int tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void setInt(int index, int value) {
+        Object primitives = this.primitives(IntTag.ID);
+        if (primitives != null) {
+            ((int[]) primitives)[Objects.checkIndex(index, this.count)] = value;
+        } else {
+            ((IntTag) this.owned().get(index)).setValue(value);
+        }
+    }
+
+    /**
+     * Appends an element to an int list. An empty list stores its elements as an {@code int[]} from then on, until they
+     * are accessed as tags.
+     *
+     * @param value Value of the element.
+     * @throws IllegalArgumentException If this is not a list of int tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be int
+    public void addInt(int value) {
+        Object primitives = this.appendSlot(IntTag.ID);
+        if (primitives != null) {
+            ((int[]) primitives)[this.count++] = value;
+        } else {
+            this.owned().add((T) new IntTag("", value));
+        }
+    }
+
+    /**
+     * Appends the remaining values of a buffer to an int list, see {@link #addInt(int)}.
+     * The position of the buffer is advanced past them.
+     *
+     * @param values Buffer holding the values of the elements, for example a wrapped array.
+     * @throws IllegalArgumentException If this is not a list of int tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be int
+    public void addInts(IntBuffer values) {
+        int length = values.remaining();
+        Object primitives = this.appendSlots(IntTag.ID, length);
+        if (primitives != null) {
+            values.get((int[]) primitives, this.count, length);
+            this.count += length;
+        } else {
+            List<T> value = this.owned();
+            while (values.hasRemaining()) {
+                value.add((T) new IntTag("", values.get()));
+            }
+        }
+    }
+
+    /**
+     * Gets an element of a float list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @return The value of the element.
+     * @throws IllegalArgumentException  If this is not a list of float tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public float getFloat(int index) {
+        Object primitives = this.primitives(FloatTag.ID);
+        if (primitives != null) {
+            return ((float[]) primitives)[Objects.checkIndex(index, this.count)];
+        }
+        return ((FloatTag) this.value.get(index)).getRawValue();
+    }
+
+    /**
+     * Sets an element of a float list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @param value New value of the element.
+     * @throws IllegalArgumentException  If this is not a list of float tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void setFloat(int index, float value) {
+        Object primitives = this.primitives(FloatTag.ID);
+        if (primitives != null) {
+            ((float[]) primitives)[Objects.checkIndex(index, this.count)] = value;
+        } else {
+            ((FloatTag) this.owned().get(index)).setValue(value);
+        }
+    }
+
+    /**
+     * Appends an element to a float list. An empty list stores its elements as a {@code float[]} from then on, until
+     * they are accessed as tags.
+     *
+     * @param value Value of the element.
+     * @throws IllegalArgumentException If this is not a list of float tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be float
+    public void addFloat(float value) {
+        Object primitives = this.appendSlot(FloatTag.ID);
+        if (primitives != null) {
+            ((float[]) primitives)[this.count++] = value;
+        } else {
+            this.owned().add((T) new FloatTag("", value));
+        }
+    }
+
+    /**
+     * Appends the remaining values of a buffer to a float list, see {@link #addFloat(float)}.
+     * The position of the buffer is advanced past them.
+     *
+     * @param values Buffer holding the values of the elements, for example a wrapped array.
+     * @throws IllegalArgumentException If this is not a list of float tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be float
+    public void addFloats(FloatBuffer values) {
+        int length = values.remaining();
+        Object primitives = this.appendSlots(FloatTag.ID, length);
+        if (primitives != null) {
+            values.get((float[]) primitives, this.count, length);
+            this.count += length;
+        } else {
+            List<T> value = this.owned();
+            while (values.hasRemaining()) {
+                value.add((T) new FloatTag("", values.get()));
+            }
+        }
+    }
+
+    /**
+     * Gets an element of a double list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @return The value of the element.
+     * @throws IllegalArgumentException  If this is not a list of double tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public double getDouble(int index) {
+        Object primitives = this.primitives(DoubleTag.ID);
+        if (primitives != null) {
+            return ((double[]) primitives)[Objects.checkIndex(index, this.count)];
+        }
+        return ((DoubleTag) this.value.get(index)).getRawValue();
+    }
+
+    /**
+     * Sets an element of a double list without creating a tag for it.
+     *
+     * @param index Index of the element.
+     * @param value New value of the element.
+     * @throws IllegalArgumentException  If this is not a list of double tags.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void setDouble(int index, double value) {
+        Object primitives = this.primitives(DoubleTag.ID);
+        if (primitives != null) {
+            ((double[]) primitives)[Objects.checkIndex(index, this.count)] = value;
+        } else {
+            ((DoubleTag) this.owned().get(index)).setValue(value);
+        }
+    }
+
+    /**
+     * Appends an element to a double list. An empty list stores its elements as a {@code double[]} from then on, until
+     * they are accessed as tags.
+     *
+     * @param value Value of the element.
+     * @throws IllegalArgumentException If this is not a list of double tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be double
+    public void addDouble(double value) {
+        Object primitives = this.appendSlot(DoubleTag.ID);
+        if (primitives != null) {
+            ((double[]) primitives)[this.count++] = value;
+        } else {
+            this.owned().add((T) new DoubleTag("", value));
+        }
+    }
+
+    /**
+     * Appends the remaining values of a buffer to a double list, see {@link #addDouble(double)}.
+     * The position of the buffer is advanced past them.
+     *
+     * @param values Buffer holding the values of the elements, for example a wrapped array.
+     * @throws IllegalArgumentException If this is not a list of double tags.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: the element type is checked to be double
+    public void addDoubles(DoubleBuffer values) {
+        int length = values.remaining();
+        Object primitives = this.appendSlots(DoubleTag.ID, length);
+        if (primitives != null) {
+            values.get((double[]) primitives, this.count, length);
+            this.count += length;
+        } else {
+            List<T> value = this.owned();
+            while (values.hasRemaining()) {
+                value.add((T) new DoubleTag("", values.get()));
+            }
+        }
+    }
+
+    private static boolean isPrimitiveType(int typeId) {
+        return typeId == IntTag.ID || typeId == FloatTag.ID || typeId == DoubleTag.ID;
+    }
+
+    /**
+     * Checks the element type for a primitive accessor.
+     *
+     * @return The primitive elements, or null if the elements are stored as tags.
+     */
+    private Object primitives(int id) {
+        if (this.typeId != id) {
+            throw new IllegalArgumentException(String.format("Tag type mismatch. Expected ID: %d, got: %d", this.typeId, id));
+        }
+        this.materialize();
+        return this.primitives;
+    }
+
+    /**
+     * Checks the element type for appending a primitive element and makes room for it. An empty list switches to
+     * primitive elements, unless the list of tags has been handed out and has to stay in use.
+     *
+     * @return The primitive elements with room for one more, or null if the elements are stored as tags.
+     */
+    private Object appendSlot(int id) {
+        return this.appendSlots(id, 1);
+    }
+
+    /**
+     * Checks the element type for appending primitive elements and makes room for them, see {@link #appendSlot(int)}.
+     *
+     * @return The primitive elements with room for the given number more, or null if the elements are stored as tags.
+     */
+    private Object appendSlots(int id, int length) {
+        if (this.typeId == 0) {
+            this.typeId = id;
+        } else if (this.typeId != id) {
+            throw new IllegalArgumentException(String.format("Tag type mismatch. Expected ID: %d, got: %d", this.typeId, id));
+        }
+        this.materialize();
+        if (this.primitives == null) {
+            if (!this.value.isEmpty() || this.escaped) {
+                return null;
+            }
+            this.primitives = newPrimitives(id, Math.max(length, INITIAL_CAPACITY));
+            this.value = null;
+        } else if (this.capacity() - this.count < length) {
+            int capacity = this.capacity();
+            this.primitives = this.copyPrimitives(Math.max(this.count + length, capacity + (capacity >> 1) + 1));
+        }
+        return this.primitives;
+    }
+
+    private static Object newPrimitives(int typeId, int capacity) {
+        return switch (typeId) {
+            case IntTag.ID -> new int[capacity];
+            case FloatTag.ID -> new float[capacity];
+            default -> new double[capacity];
+        };
+    }
+
+    private int capacity() {
+        return switch (this.typeId) {
+            case IntTag.ID -> ((int[]) this.primitives).length;
+            case FloatTag.ID -> ((float[]) this.primitives).length;
+            default -> ((double[]) this.primitives).length;
+        };
+    }
+
+    private Object copyPrimitives(int length) {
+        return switch (this.typeId) {
+            case IntTag.ID -> Arrays.copyOf((int[]) this.primitives, length);
+            case FloatTag.ID -> Arrays.copyOf((float[]) this.primitives, length);
+            default -> Arrays.copyOf((double[]) this.primitives, length);
+        };
+    }
+
+    /**
+     * Gets an element as a tag, which is a new tag for primitive elements.
+     */
+    @SuppressWarnings("unchecked") // Safe cast: primitives only back lists of the matching tag type
+    private T element(int index) {
+        if (this.primitives == null) {
+            return this.value.get(index);
+        }
+        return (T) switch (this.typeId) {
+            case IntTag.ID -> new IntTag("", ((int[]) this.primitives)[index]);
+            case FloatTag.ID -> new FloatTag("", ((float[]) this.primitives)[index]);
+            default -> new DoubleTag("", ((double[]) this.primitives)[index]);
+        };
+    }
+
+    private Elements<T> primitiveElements() {
+        Elements<T> elements = new Elements<>(Math.max(this.count, 10));
+        for (int index = 0; index < this.count; index++) {
+            elements.add(this.element(index));
+        }
+        return elements;
+    }
+
+    /**
+     * The list behind a list tag that stores its elements as tags.
+     */
+    private static final class Elements<T> extends ArrayList<T> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /**
+         * Whether copies of a list tag share this list, so none of them may change it or hand out its tags anymore. It
+         * is only ever set, possibly by several threads copying the same list tag at once.
+         */
+        private volatile boolean shared;
+
+        Elements() {
+        }
+
+        Elements(int capacity) {
+            super(capacity);
+        }
+
+        boolean isShared() {
+            return this.shared;
+        }
+
+        void share() {
+            if (!this.shared) {
+                this.shared = true;
+            }
+        }
     }
 
     /**
@@ -270,55 +898,119 @@ public class ListTag<T extends Tag> extends Tag implements Iterable<T> {
     @Override
     @SuppressWarnings("unchecked") // Safe cast: typeId guarantees all tags in the list are of type T
     public void read(DataInput in) throws IOException {
-        this.value.clear();
+        this.reset();
         this.typeId = in.readUnsignedByte();
         int count = in.readInt();
 
         if (count > 0 && this.typeId == 0) {
             throw new IOException("ListTag type is TAG_End but count is > 0");
         }
+        if (count > 0 && isPrimitiveType(this.typeId) && !this.escaped) {
+            this.primitives = switch (this.typeId) {
+                case IntTag.ID -> NBTReader.readIntElements(in, count);
+                case FloatTag.ID -> NBTReader.readFloatElements(in, count);
+                default -> NBTReader.readDoubleElements(in, count);
+            };
+            this.count = count;
+            this.value = null;
+            return;
+        }
         for (int index = 0; index < count; index++) {
-
-            try {
-                Tag tag = TagFactory.createInstance(this.typeId, "");
-                tag.read(in);
-                this.value.add((T) tag);
-            } catch (TagCreateException e) {
-                throw new IOException("Failed to create tag with ID: " + this.typeId, e);
-            }
+            this.value.add((T) NBTReader.readPayload(in, this.typeId, ""));
         }
     }
 
     @Override
     public void write(DataOutput out) throws IOException {
+        if (this.lazy != null && this.lazy.writeTo(out)) {
+            return;
+        }
+        this.materialize();
         out.writeByte(this.typeId);
-        out.writeInt(this.value.size());
-        for (T tag : this.value) {
-            tag.write(out);
+        if (this.primitives == null) {
+            out.writeInt(this.value.size());
+            for (T tag : this.value) {
+                tag.write(out);
+            }
+            return;
+        }
+        out.writeInt(this.count);
+        switch (this.typeId) {
+            case IntTag.ID -> NBTWriter.writeIntElements(out, (int[]) this.primitives, this.count);
+            case FloatTag.ID -> NBTWriter.writeFloatElements(out, (float[]) this.primitives, this.count);
+            default -> NBTWriter.writeDoubleElements(out, (double[]) this.primitives, this.count);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the tags of this list with this tag until either of the two is changed or hands out one of its
+     * tags, which then copies its other elements one level deep. Tags that may be referenced from outside, because they
+     * have been handed out by {@link #get(int)} or an iterator or were added by {@link #add(Tag)} or
+     * {@link #set(int, Tag)}, are copied right away instead, as are all tags once the list itself has been handed out by
+     * {@link #getRawValue()}. The copy does not hand out any tags, so copying it again takes constant time. Int, float
+     * and double elements stored as primitives and array tags are always copied right away.
+     * <p>
+     * Copying does not change this tag, so a list tag that is not lazy can be copied and read, for example by
+     * {@link #equals(Object)}, {@link #write(DataOutput)} or {@link #getReadOnlyValue()}, from several threads at once.
+     */
     @Override
-    @SuppressWarnings("unchecked") // Safe cast: tag.copy() returns a Tag of the same concrete type
     public ListTag<T> copy() {
-        ListTag<T> copy = new ListTag<>(this.getName(), this.typeId);
-        for (T tag : this.value) {
-            copy.add((T) tag.copy());
+        if (this.lazy != null) {
+            return new ListTag<>(this.getName(), this.typeId, this.lazy);
         }
-        return copy;
+        if (this.primitives != null) {
+            return new ListTag<>(this.getName(), this.typeId, this.copyPrimitives(this.count), this.count);
+        }
+        Elements<T> value = this.value;
+        if (this.escaped) {
+            return new ListTag<>(this.getName(), this.typeId, mapElements(value, Tag::copy));
+        }
+        int handedOut = this.handedOut < 0 ? countHandedOut(value) : this.handedOut;
+        value.share();
+        if (handedOut == 0) {
+            return new ListTag<>(this.getName(), this.typeId, value);
+        }
+        // The tags that are not handed out are shared by both lists.
+        Elements<T> copy = mapElements(value, tag -> tag.handedOut ? tag.copy() : tag);
+        copy.share();
+        return new ListTag<>(this.getName(), this.typeId, copy);
     }
 
     @Override
     public boolean equals(Object o) {
         if (super.equals(o)) {
             ListTag<?> listTag = (ListTag<?>) o;
-            return this.typeId == listTag.typeId && this.value.equals(listTag.value);
+            if (this.typeId != listTag.typeId) {
+                return false;
+            }
+            this.materialize();
+            listTag.materialize();
+            if (this.primitives == null && listTag.primitives == null) {
+                return this.value.equals(listTag.value);
+            }
+            int size = this.size();
+            if (size != listTag.size()) {
+                return false;
+            }
+            for (int index = 0; index < size; index++) {
+                if (!this.element(index).equals(listTag.element(index))) {
+                    return false;
+                }
+            }
+            return true;
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), typeId, value);
+        // Same as the hash code of the list of tags, however the elements are stored.
+        int elementsHash = 1;
+        for (int index = 0, size = this.size(); index < size; index++) {
+            elementsHash = 31 * elementsHash + this.element(index).hashCode();
+        }
+        return Objects.hash(super.hashCode(), typeId, elementsHash);
     }
 }
@@ -1,5 +1,8 @@
 package tech.minediamond.micanbt.tag;
 
+import tech.minediamond.micanbt.NBT.NBTReader;
+import tech.minediamond.micanbt.NBT.NBTWriter;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
@@ -91,20 +94,19 @@ public class LongArrayTag extends Tag {
 
     @Override
     public void read(DataInput in) throws IOException {
-        this.value = new long[in.readInt()];
-        for (int index = 0; index < this.value.length; index++) {
-            this.value[index] = in.readLong();
-        }
+        this.value = NBTReader.readLongArray(in);
     }
 
     @Override
     public void write(DataOutput out) throws IOException {
-        out.writeInt(this.value.length);
-        for (int index = 0; index < this.value.length; index++) {
-            out.writeLong(this.value[index]);
-        }
+        NBTWriter.writeLongArray(out, this.value);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The array is always copied, so the copy never shares it with this tag.
+     */
     @Override
     public LongArrayTag copy() {
         return new LongArrayTag(this.getName(), this.getClonedValue());
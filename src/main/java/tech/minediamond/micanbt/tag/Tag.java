@@ -1,5 +1,6 @@
 package tech.minediamond.micanbt.tag;
 
+import tech.minediamond.micanbt.NBT.NBTHash;
 import tech.minediamond.micanbt.SNBT.SNBT;
 import tech.minediamond.micanbt.SNBT.SNBTStyle;
 import tech.minediamond.micanbt.path.NBTFinder;
@@ -17,6 +18,11 @@ import java.io.IOException;
  */
 public abstract class Tag {
     private final String name;
+    /**
+     * Whether this tag has been handed out by the compound or list tag holding it, or was put into one by a caller, so
+     * it may be referenced from outside. Copies of the compound or list tag cannot share such a tag.
+     */
+    boolean handedOut;
 
     /**
      * Creates a tag with the specified name.
@@ -83,6 +89,17 @@ public abstract class Tag {
      */
     public abstract Tag copy();
 
+    /**
+     * Computes a 64-bit hash of the type and value of this tag, independent of its name and of the order of compound
+     * entries. The same hash can be computed from binary NBT without reading the tag.
+     *
+     * @return The content hash of this tag.
+     * @see NBTHash
+     */
+    public long contentHash() {
+        return NBTHash.hash(this);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o != null && getClass() == o.getClass()) {
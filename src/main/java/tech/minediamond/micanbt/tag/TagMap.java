@@ -0,0 +1,395 @@
+package tech.minediamond.micanbt.tag;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The insertion-ordered map behind {@link CompoundTag}.
+ * <p>
+ * Keys and values are kept in two flat arrays in insertion order, so an entry costs two array slots instead of a
+ * linked entry object. Small maps, which most compounds are, find keys by scanning the keys. Larger maps also keep an
+ * open-addressing index of array positions with linear probing. Removing an entry shifts the following entries, so it
+ * takes linear time.
+ */
+final class TagMap extends AbstractMap<String, Tag> {
+    /**
+     * Up to this size keys are found by a linear scan, and no index is kept.
+     */
+    private static final int SCAN_LIMIT = 8;
+    private static final int MIN_CAPACITY = 4;
+    private static final String[] NO_KEYS = {};
+    private static final Tag[] NO_VALUES = {};
+
+    private String[] keys;
+    private Tag[] values;
+    private int size;
+    /**
+     * Positions of the entries plus one by hash, 0 for a free slot, or null while the map is small enough to scan.
+     * Its length is a power of two of at least twice the capacity.
+     */
+    private int[] index;
+    private int modCount;
+    /**
+     * Whether copies of a compound tag share this map, so none of them may change it or hand out its tags anymore. It
+     * is only ever set, possibly by several threads copying the same compound tag at once.
+     */
+    private volatile boolean shared;
+
+    TagMap() {
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+    }
+
+    TagMap(int expectedSize) {
+        this();
+        this.ensureCapacity(expectedSize);
+    }
+
+    TagMap(Map<String, ? extends Tag> map) {
+        this(map.size());
+        this.putAll(map);
+    }
+
+    /**
+     * Creates a map with the keys of another map and its tags mapped by a function, without looking up any keys.
+     */
+    TagMap(TagMap map, UnaryOperator<Tag> function) {
+        this.keys = map.keys.clone();
+        this.values = new Tag[map.values.length];
+        for (int position = 0; position < map.size; position++) {
+            this.values[position] = function.apply(map.values[position]);
+        }
+        this.size = map.size;
+        this.index = map.index == null ? null : map.index.clone();
+    }
+
+    boolean isShared() {
+        return this.shared;
+    }
+
+    /**
+     * Marks this map as shared between compound tags.
+     */
+    void share() {
+        if (!this.shared) {
+            this.shared = true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Tag get(Object key) {
+        int position = this.indexOf(key);
+        return position >= 0 ? this.values[position] : null;
+    }
+
+    @Override
+    public Tag put(String key, Tag value) {
+        int position = this.indexOf(key);
+        if (position >= 0) {
+            Tag old = this.values[position];
+            this.values[position] = value;
+            return old;
+        }
+
+        this.ensureCapacity(this.size + 1);
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.size++;
+        this.modCount++;
+        if (this.index != null) {
+            this.insertIndex(this.size - 1);
+        } else if (this.size > SCAN_LIMIT) {
+            this.buildIndex();
+        }
+        return null;
+    }
+
+    @Override
+    public Tag remove(Object key) {
+        int position = this.indexOf(key);
+        return position >= 0 ? this.removeAt(position) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, 0, this.size, null);
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+        this.index = null;
+        this.modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Tag> action) {
+        int expectedModCount = this.modCount;
+        for (int position = 0; position < this.size; position++) {
+            action.accept(this.keys[position], this.values[position]);
+            if (this.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    String element(int position) {
+                        return TagMap.this.keys[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TagMap.this.size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return TagMap.this.containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                int position = TagMap.this.indexOf(o);
+                if (position < 0) {
+                    return false;
+                }
+                TagMap.this.removeAt(position);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                TagMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Tag> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Tag> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    Tag element(int position) {
+                        return TagMap.this.values[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TagMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                TagMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, Tag>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Tag>> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    Entry<String, Tag> element(int position) {
+                        return new PositionEntry(position);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TagMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                TagMap.this.clear();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (this.index == null) {
+            for (int position = 0; position < this.size; position++) {
+                if (Objects.equals(this.keys[position], key)) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+
+        int mask = this.index.length - 1;
+        for (int slot = hash(key) & mask; ; slot = slot + 1 & mask) {
+            int entry = this.index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (Objects.equals(this.keys[entry - 1], key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private Tag removeAt(int position) {
+        Tag old = this.values[position];
+        int moved = this.size - position - 1;
+        System.arraycopy(this.keys, position + 1, this.keys, position, moved);
+        System.arraycopy(this.values, position + 1, this.values, position, moved);
+        this.size--;
+        this.keys[this.size] = null;
+        this.values[this.size] = null;
+        this.modCount++;
+        if (this.index != null) {
+            // Positions after the removed entry have shifted, so the index is rebuilt, which is linear like the shift.
+            if (this.size > SCAN_LIMIT) {
+                this.buildIndex();
+            } else {
+                this.index = null;
+            }
+        }
+        return old;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.keys.length) {
+            return;
+        }
+        int length = Math.max(Math.max(capacity, MIN_CAPACITY), this.keys.length + (this.keys.length >> 1));
+        this.keys = Arrays.copyOf(this.keys, length);
+        this.values = Arrays.copyOf(this.values, length);
+        if (this.index != null) {
+            this.buildIndex();
+        }
+    }
+
+    private void buildIndex() {
+        this.index = new int[Integer.highestOneBit(Math.max(this.keys.length, 1) * 4 - 1)];
+        for (int position = 0; position < this.size; position++) {
+            this.insertIndex(position);
+        }
+    }
+
+    private void insertIndex(int position) {
+        int mask = this.index.length - 1;
+        int slot = hash(this.keys[position]) & mask;
+        while (this.index[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        this.index[slot] = position + 1;
+    }
+
+    private static int hash(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Iterates over the positions in insertion order, supporting removal of the last returned element.
+     */
+    private abstract class PositionIterator<E> implements Iterator<E> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = TagMap.this.modCount;
+
+        abstract E element(int position);
+
+        @Override
+        public boolean hasNext() {
+            return this.next < TagMap.this.size;
+        }
+
+        @Override
+        public E next() {
+            if (TagMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (this.next >= TagMap.this.size) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next++;
+            return this.element(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (TagMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            TagMap.this.removeAt(this.last);
+            this.next = this.last;
+            this.last = -1;
+            this.expectedModCount = TagMap.this.modCount;
+        }
+    }
+
+    /**
+     * An entry that reads and writes the arrays at its position, which stays valid until the map is structurally
+     * changed.
+     */
+    private final class PositionEntry implements Entry<String, Tag> {
+        private final int position;
+
+        private PositionEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return TagMap.this.keys[this.position];
+        }
+
+        @Override
+        public Tag getValue() {
+            return TagMap.this.values[this.position];
+        }
+
+        @Override
+        public Tag setValue(Tag value) {
+            Tag old = TagMap.this.values[this.position];
+            TagMap.this.values[this.position] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry
+                    && Objects.equals(this.getKey(), entry.getKey()) && Objects.equals(this.getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.getKey()) ^ Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+}
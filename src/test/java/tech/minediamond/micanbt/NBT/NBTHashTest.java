@@ -0,0 +1,114 @@
+package tech.minediamond.micanbt.NBT;
+
+import org.junit.jupiter.api.Test;
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NBTHashTest {
+    @Test
+    void treeHashMatchesStreamHash() throws IOException {
+        CompoundTag tree = tree();
+        long hash = NBTHash.hash(tree);
+        for (NBTFormat format : NBTFormat.values()) {
+            byte[] data = write(tree, format);
+            InputStream in = new ByteArrayInputStream(data);
+            assertEquals(hash, NBTHash.hash(in, format), format.toString());
+            assertEquals(0, in.available(), format.toString());
+            assertEquals(hash, NBTHash.hash(NBTReader.readTag(new ByteArrayInputStream(data), format)), format.toString());
+        }
+        assertEquals(hash, NBTHash.hash(new DataInputStream(new ByteArrayInputStream(write(tree, NBTFormat.JAVA)))));
+    }
+
+    @Test
+    void ignoresNamesAndEntryOrder() {
+        CompoundTag first = new CompoundTag("first");
+        first.put(new IntTag("a", 1));
+        first.put(new StringTag("b", "value"));
+        CompoundTag second = new CompoundTag("second");
+        second.put(new StringTag("b", "value"));
+        second.put(new IntTag("a", 1));
+        assertEquals(NBTHash.hash(first), NBTHash.hash(second));
+
+        second.put(new IntTag("a", 2));
+        assertNotEquals(NBTHash.hash(first), NBTHash.hash(second));
+    }
+
+    @Test
+    void keepsListOrder() {
+        ListTag<StringTag> first = new ListTag<>("list");
+        first.add(new StringTag("", "a"));
+        first.add(new StringTag("", "b"));
+        ListTag<StringTag> second = new ListTag<>("list");
+        second.add(new StringTag("", "b"));
+        second.add(new StringTag("", "a"));
+        assertNotEquals(NBTHash.hash(first), NBTHash.hash(second));
+    }
+
+    @Test
+    void hashesPrimitiveListsLikeTagLists() {
+        ListTag<IntTag> primitives = new ListTag<>("ints");
+        ListTag<IntTag> tags = new ListTag<>("ints");
+        for (int value = 0; value < 100; value++) {
+            primitives.addInt(value);
+            tags.add(new IntTag("", value));
+        }
+        assertEquals(primitives, tags);
+        assertEquals(NBTHash.hash(tags), NBTHash.hash(primitives));
+    }
+
+    @Test
+    void hashesEqualNaNsEqually() throws IOException {
+        FloatTag floatNaN = new FloatTag("f", Float.intBitsToFloat(0x7fc00001));
+        DoubleTag doubleNaN = new DoubleTag("d", Double.longBitsToDouble(0x7ff8000000000001L));
+        assertEquals(new FloatTag("f", Float.NaN), floatNaN);
+        assertEquals(new DoubleTag("d", Double.NaN), doubleNaN);
+        assertEquals(NBTHash.hash(new FloatTag("f", Float.NaN)), NBTHash.hash(floatNaN));
+        assertEquals(NBTHash.hash(new DoubleTag("d", Double.NaN)), NBTHash.hash(doubleNaN));
+
+        ListTag<FloatTag> floats = new ListTag<>("floats");
+        floats.addFloat(floatNaN.getRawValue());
+        assertEquals(NBTHash.hash(new ListTag<>("floats", List.of(new FloatTag("", Float.NaN)))), NBTHash.hash(floats));
+        assertEquals(NBTHash.hash(floats), NBTHash.hash(new ByteArrayInputStream(write(floats, NBTFormat.JAVA)), NBTFormat.JAVA));
+    }
+
+    private static CompoundTag tree() {
+        CompoundTag root = new CompoundTag("root");
+        root.put(new ByteTag("byte", (byte) -3));
+        root.put(new ShortTag("short", (short) 1234));
+        root.put(new IntTag("int", -123456));
+        root.put(new LongTag("long", 1L << 40));
+        root.put(new FloatTag("float", 1.5f));
+        root.put(new DoubleTag("double", -2.25));
+        root.put(new StringTag("string", "h\u00e9llo \uD83D\uDE00"));
+        root.put(new ByteArrayTag("bytes", new byte[]{1, 2, 3}));
+        root.put(new IntArrayTag("ints", new int[20_000]));
+        root.put(new LongArrayTag("longs", new long[]{Long.MIN_VALUE, 0, Long.MAX_VALUE}));
+        ListTag<DoubleTag> doubles = new ListTag<>("doubles");
+        doubles.addDouble(1);
+        doubles.addDouble(-0.0);
+        root.put(doubles);
+        ListTag<CompoundTag> compounds = new ListTag<>("compounds");
+        for (int index = 0; index < 3; index++) {
+            CompoundTag element = new CompoundTag("");
+            element.put(new IntTag("index", index));
+            element.put(new ListTag<>("empty"));
+            compounds.add(element);
+        }
+        root.put(compounds);
+        return root;
+    }
+
+    private static byte[] write(Tag tag, NBTFormat format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NBTWriter.writeTag(bytes, tag, format);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,117 @@
+package tech.minediamond.micanbt.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LZ4Test {
+    /**
+     * "abc" repeated 8 times and "hello" as one compressed block: the literals "abc", a match of length 21 at offset 3
+     * and the last literals "hello", followed by the end block.
+     */
+    private static final byte[] COMPRESSED_FRAME = HexFormat.of().parseHex(
+            "4c5a34426c6f636b260d0000001d0000004585cf09"
+                    + "3f6162630300025068656c6c6f"
+                    + "4c5a34426c6f636b16000000000000000000000000");
+    /**
+     * A block stored without compression, followed by the end block.
+     */
+    private static final byte[] RAW_FRAME = HexFormat.of().parseHex(
+            "4c5a34426c6f636b1627000000270000001917b900"
+                    + "4e6f626f647920696e73706563747320746865207370616d6d6973682072657065746974696f6e"
+                    + "4c5a34426c6f636b16000000000000000000000000");
+
+    @Test
+    void decodesCompressedFrame() throws IOException {
+        assertArrayEquals(ascii("abcabcabcabcabcabcabcabchello"), decompress(COMPRESSED_FRAME));
+    }
+
+    @Test
+    void decodesRawFrame() throws IOException {
+        assertArrayEquals(ascii("Nobody inspects the spammish repetition"), decompress(RAW_FRAME));
+    }
+
+    @Test
+    void detectsFrames() {
+        assertEquals(Compression.LZ4, Compression.detect(COMPRESSED_FRAME, COMPRESSED_FRAME.length));
+        assertEquals(Compression.LZ4, Compression.detect(RAW_FRAME, RAW_FRAME.length));
+    }
+
+    @Test
+    void hashesKnownVectors() {
+        assertEquals(0x02CC5D05, hash(ascii("")));
+        assertEquals(0x32D153FF, hash(ascii("abc")));
+        assertEquals(0xE2293B2F, hash(ascii("Nobody inspects the spammish repetition")));
+    }
+
+    @Test
+    void roundTripsCompressibleData() throws IOException {
+        byte[] data = new byte[200_000];
+        for (int index = 0; index < data.length; index++) {
+            data[index] = (byte) (index % 251 ^ index / 1000);
+        }
+        byte[] compressed = compress(data);
+        assertTrue(compressed.length < data.length / 2, "Data was not compressed: " + compressed.length);
+        assertArrayEquals(data, decompress(compressed));
+    }
+
+    @Test
+    void roundTripsIncompressibleData() throws IOException {
+        byte[] data = new byte[150_000];
+        new Random(42).nextBytes(data);
+        assertArrayEquals(data, decompress(compress(data)));
+        assertArrayEquals(new byte[0], decompress(compress(new byte[0])));
+    }
+
+    @Test
+    void rejectsOversizedCompressedLength() {
+        byte[] frame = COMPRESSED_FRAME.clone();
+        LZ4.writeIntLE(frame, LZ4BlockOutputStream.MAGIC.length + 1, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> decompress(frame));
+    }
+
+    @Test
+    void rejectsChecksumMismatch() {
+        byte[] frame = COMPRESSED_FRAME.clone();
+        frame[LZ4BlockOutputStream.HEADER_LENGTH - 1] ^= 1;
+        assertThrows(IOException.class, () -> decompress(frame));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] frame = new byte[COMPRESSED_FRAME.length - 30];
+        System.arraycopy(COMPRESSED_FRAME, 0, frame, 0, frame.length);
+        assertThrows(IOException.class, () -> decompress(frame));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int hash(byte[] data) {
+        return XXHash32.hash(data, 0, data.length, 0);
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = Compression.LZ4.compress(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (InputStream in = Compression.LZ4.decompress(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
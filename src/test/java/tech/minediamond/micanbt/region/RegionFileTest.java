@@ -0,0 +1,145 @@
+package tech.minediamond.micanbt.region;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.minediamond.micanbt.compression.Compression;
+import tech.minediamond.micanbt.tag.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWrittenChunks() throws IOException {
+        for (Compression compression : new Compression[]{Compression.ZLIB, Compression.GZIP, Compression.LZ4, Compression.NONE}) {
+            Path path = this.directory.resolve("r.0.0." + compression + ".mca");
+            try (RegionFileWriter writer = new RegionFileWriter(path, compression)) {
+                writer.writeChunk(0, 0, chunk(0, 0, 10), 100);
+                writer.writeChunk(31, 31, chunk(31, 31, 5000), 200);
+            }
+            try (RegionFileReader reader = new RegionFileReader(path)) {
+                assertEquals(chunk(0, 0, 10), reader.readChunk(0, 0));
+                assertEquals(chunk(31, 31, 5000), reader.readChunk(31, 31));
+                assertEquals(200, reader.getTimestamp(31, 31));
+                assertNull(reader.readChunk(1, 0));
+            }
+        }
+    }
+
+    @Test
+    void replacesAndDeletesChunks() throws IOException {
+        Path path = this.directory.resolve("r.0.0.mca");
+        try (RegionFileWriter writer = new RegionFileWriter(path)) {
+            writer.writeChunk(1, 2, chunk(1, 2, 10));
+            writer.writeChunk(3, 4, chunk(3, 4, 10));
+            writer.writeChunk(1, 2, chunk(1, 2, 20_000));
+            writer.writeChunk(5, 6, chunk(5, 6, 10));
+            writer.deleteChunk(3, 4);
+        }
+        // Reopening loads the header written so far.
+        try (RegionFileWriter writer = new RegionFileWriter(path)) {
+            assertTrue(writer.hasChunk(1, 2));
+            assertFalse(writer.hasChunk(3, 4));
+            writer.writeChunk(1, 2, chunk(1, 2, 30));
+        }
+        try (RegionFileReader reader = new RegionFileReader(path)) {
+            assertEquals(chunk(1, 2, 30), reader.readChunk(1, 2));
+            assertEquals(chunk(5, 6, 10), reader.readChunk(5, 6));
+            assertNull(reader.readChunk(3, 4));
+        }
+    }
+
+    @Test
+    void reusesReleasedSectorsOnlyAfterFlush() throws IOException {
+        Path path = this.directory.resolve("r.0.0.mca");
+        try (RegionFileWriter writer = new RegionFileWriter(path, Compression.NONE)) {
+            writer.writeChunk(0, 0, chunk(0, 0, 10));
+            long size = Files.size(path);
+            // The previous sectors may still be referenced by the header on the device.
+            writer.writeChunk(0, 0, chunk(0, 0, 10));
+            assertTrue(Files.size(path) > size);
+
+            writer.flush();
+            size = Files.size(path);
+            writer.writeChunk(1, 0, chunk(1, 0, 10));
+            assertEquals(size, Files.size(path));
+        }
+        try (RegionFileReader reader = new RegionFileReader(path)) {
+            assertEquals(chunk(0, 0, 10), reader.readChunk(0, 0));
+            assertEquals(chunk(1, 0, 10), reader.readChunk(1, 0));
+        }
+    }
+
+    @Test
+    void storesLargeChunksExternally() throws IOException {
+        Path path = this.directory.resolve("r.0.0.mca");
+        byte[] noise = new byte[1_200_000];
+        new Random(7).nextBytes(noise);
+        CompoundTag large = chunk(2, 3, 10);
+        large.put(new ByteArrayTag("noise", noise));
+        try (RegionFileWriter writer = new RegionFileWriter(path)) {
+            writer.writeChunk(2, 3, large);
+        }
+        Path external = RegionFormat.externalChunkPath(path, 2, 3);
+        assertTrue(Files.exists(external));
+        try (RegionFileReader reader = new RegionFileReader(path)) {
+            assertEquals(large, reader.readChunk(2, 3));
+        }
+
+        try (RegionFileWriter writer = new RegionFileWriter(path)) {
+            writer.writeChunk(2, 3, chunk(2, 3, 10));
+        }
+        assertFalse(Files.exists(external));
+        try (RegionFileReader reader = new RegionFileReader(path)) {
+            assertEquals(chunk(2, 3, 10), reader.readChunk(2, 3));
+        }
+    }
+
+    @Test
+    void rewritesRegion() throws IOException {
+        Path source = this.directory.resolve("r.0.0.mca");
+        Path target = this.directory.resolve("copy").resolve("r.0.0.mca");
+        try (RegionFileWriter writer = new RegionFileWriter(source)) {
+            for (int index = 0; index < 64; index++) {
+                writer.writeChunk(index % 32, index / 32, chunk(index % 32, index / 32, index * 100), index);
+            }
+        }
+        try (RegionFileReader reader = new RegionFileReader(source);
+             RegionFileWriter writer = new RegionFileWriter(target, Compression.LZ4)) {
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    if (reader.hasChunk(x, z)) {
+                        writer.writeChunk(x, z, reader.readChunk(x, z), reader.getTimestamp(x, z));
+                    }
+                }
+            }
+        }
+        try (RegionFileReader reader = new RegionFileReader(target)) {
+            for (int index = 0; index < 64; index++) {
+                assertEquals(chunk(index % 32, index / 32, index * 100), reader.readChunk(index % 32, index / 32));
+                assertEquals(index, reader.getTimestamp(index % 32, index / 32));
+            }
+            assertFalse(reader.hasChunk(0, 2));
+        }
+    }
+
+    private static CompoundTag chunk(int x, int z, int size) {
+        CompoundTag chunk = new CompoundTag("");
+        chunk.put(new IntTag("xPos", x));
+        chunk.put(new IntTag("zPos", z));
+        chunk.put(new StringTag("Status", "minecraft:full"));
+        long[] data = new long[size];
+        for (int index = 0; index < size; index++) {
+            data[index] = (long) index * (x + 1) * (z + 1);
+        }
+        chunk.put(new LongArrayTag("data", data));
+        return chunk;
+    }
+}
@@ -0,0 +1,83 @@
+package tech.minediamond.micanbt.tag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagMapTest {
+    @Test
+    void keepsInsertionOrder() {
+        // Past the scan limit, so lookups go through the index.
+        for (int size : new int[]{3, 100}) {
+            TagMap map = new TagMap();
+            Map<String, Tag> expected = new LinkedHashMap<>();
+            for (int index = size - 1; index >= 0; index--) {
+                IntTag tag = new IntTag("k" + index, index);
+                assertNull(map.put(tag.getName(), tag));
+                expected.put(tag.getName(), tag);
+            }
+            assertEquals(expected, map);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+            assertEquals(expected.hashCode(), map.hashCode());
+            for (int index = 0; index < size; index++) {
+                assertEquals(new IntTag("k" + index, index), map.get("k" + index));
+            }
+            assertNull(map.get("missing"));
+        }
+    }
+
+    @Test
+    void replacesInPlace() {
+        TagMap map = filled(20);
+        IntTag replacement = new IntTag("k5", -1);
+        assertEquals(new IntTag("k5", 5), map.put("k5", replacement));
+        assertEquals(20, map.size());
+        assertSame(replacement, map.get("k5"));
+        assertEquals("k5", new ArrayList<>(map.keySet()).get(5));
+    }
+
+    @Test
+    void removesAndShifts() {
+        for (int size : new int[]{5, 50}) {
+            TagMap map = filled(size);
+            assertEquals(new IntTag("k2", 2), map.remove("k2"));
+            assertNull(map.remove("k2"));
+            assertFalse(map.containsKey("k2"));
+            List<String> keys = new ArrayList<>(map.keySet());
+            assertEquals(size - 1, keys.size());
+            assertEquals("k3", keys.get(2));
+            for (int index = 3; index < size; index++) {
+                assertEquals(new IntTag("k" + index, index), map.get("k" + index));
+            }
+
+            Iterator<Map.Entry<String, Tag>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getKey().hashCode() % 2 == 0) {
+                    iterator.remove();
+                }
+            }
+            for (String key : keys) {
+                assertEquals(key.hashCode() % 2 != 0, map.containsKey(key), key);
+            }
+
+            map.clear();
+            assertTrue(map.isEmpty());
+            map.put("k0", new IntTag("k0", 0));
+            assertEquals(1, map.size());
+        }
+    }
+
+    private static TagMap filled(int size) {
+        TagMap map = new TagMap();
+        for (int index = 0; index < size; index++) {
+            map.put("k" + index, new IntTag("k" + index, index));
+        }
+        return map;
+    }
+}